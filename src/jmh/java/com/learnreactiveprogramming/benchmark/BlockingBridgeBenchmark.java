@@ -0,0 +1,66 @@
+package com.learnreactiveprogramming.benchmark;
+
+import com.learnreactiveprogramming.service.MovieInfoService;
+import com.learnreactiveprogramming.service.MovieReactiveService;
+import com.learnreactiveprogramming.service.ReviewService;
+import com.learnreactiveprogramming.util.BlockingSchedulers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to complete {@code calls} concurrent getMovieById_blockingBridge calls (each blocks for 1s) per blocking executor.
+ * "virtual" falls back to boundedElastic on JDKs without virtual threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(1)
+public class BlockingBridgeBenchmark {
+
+    @Param({"commonPool", "boundedElastic", "virtual"})
+    String executor;
+
+    @Param({"50000"})
+    int calls;
+
+    MovieReactiveService movieReactiveService;
+
+    @Setup
+    public void setUp() {
+        movieReactiveService = new MovieReactiveService(new MovieInfoService(), new ReviewService());
+        switch (executor) {
+            case "commonPool":
+                movieReactiveService.setBlockingScheduler(Schedulers.fromExecutor(ForkJoinPool.commonPool()));
+                break;
+            case "boundedElastic":
+                movieReactiveService.setBlockingScheduler(Schedulers.boundedElastic());
+                break;
+            default:
+                movieReactiveService.setBlockingScheduler(BlockingSchedulers.defaultScheduler());
+        }
+    }
+
+    @Benchmark
+    public Long getMovieById_blockingBridge() {
+        return Flux.range(1, calls)
+                .flatMap(movieId -> movieReactiveService.getMovieById_blockingBridge(movieId), calls)
+                .count()
+                .block();
+    }
+}
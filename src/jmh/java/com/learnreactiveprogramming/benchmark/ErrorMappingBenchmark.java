@@ -0,0 +1,60 @@
+package com.learnreactiveprogramming.benchmark;
+
+import com.learnreactiveprogramming.exception.MovieException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * onErrorMap on a workload where every other call fails : throwing a new MovieException (with its stack trace)
+ * versus returning a stackless one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ErrorMappingBenchmark {
+
+    static final int CALLS = 1000;
+
+    // shared so only the cost of the mapping is measured
+    final RuntimeException upstreamError = MovieException.stackless(new IllegalStateException("Review Service is down"));
+
+    @Benchmark
+    public Long throwWithStackTrace() {
+        return Flux.range(0, CALLS)
+                .concatMap(i -> call(i)
+                        .onErrorMap(ex -> {
+                            throw new MovieException(ex.getMessage());
+                        })
+                        .onErrorResume(ex -> Mono.empty()))
+                .count()
+                .block();
+    }
+
+    @Benchmark
+    public Long returnStackless() {
+        return Flux.range(0, CALLS)
+                .concatMap(i -> call(i)
+                        .onErrorMap(MovieException::stackless)
+                        .onErrorResume(ex -> Mono.empty()))
+                .count()
+                .block();
+    }
+
+    private Mono<Integer> call(int i) {
+        return i % 2 == 0 ? Mono.just(i) : Mono.error(upstreamError);
+    }
+}
@@ -0,0 +1,55 @@
+package com.learnreactiveprogramming.benchmark;
+
+import com.learnreactiveprogramming.service.FluxAndMonoGeneratorService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * flatMap vs concatMap vs flatMapSequential and merge vs zip as written in FluxAndMonoGeneratorService.
+ * namesFlux_concatmap and explore_merge include their timer delays, so they mostly measure latency.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FluxAndMonoGeneratorBenchmark {
+
+    FluxAndMonoGeneratorService service = new FluxAndMonoGeneratorService();
+
+    @Benchmark
+    public List<String> namesFlux_flatmap() {
+        return service.namesFlux_flatmap(3).collectList().block();
+    }
+
+    @Benchmark
+    public List<String> namesFlux_concatmap() {
+        return service.namesFlux_concatmap(3).collectList().block();
+    }
+
+    @Benchmark
+    public List<String> namesFlux_flatmap_sequential() {
+        return service.namesFlux_flatmap_sequential(3).collectList().block();
+    }
+
+    @Benchmark
+    public List<String> explore_merge() {
+        return service.explore_merge().collectList().block();
+    }
+
+    @Benchmark
+    public List<String> explore_zip() {
+        return service.explore_zip().collectList().block();
+    }
+}
@@ -0,0 +1,61 @@
+package com.learnreactiveprogramming.benchmark;
+
+import com.learnreactiveprogramming.domain.MovieInfo;
+import com.learnreactiveprogramming.service.MovieInfoService;
+import com.learnreactiveprogramming.service.MovieReactiveService;
+import com.learnreactiveprogramming.service.ReviewService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import reactor.core.publisher.Flux;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+/**
+ * MovieReactiveService.getAllMovies over in-memory catalogs of increasing size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MovieReactiveServiceBenchmark {
+
+    @Param({"10", "1000", "100000", "1000000"})
+    int catalogSize;
+
+    MovieReactiveService movieReactiveService;
+
+    @Setup
+    public void setUp() {
+        var catalog = LongStream.rangeClosed(1, catalogSize)
+                .mapToObj(id -> new MovieInfo(id, "Movie " + id, 2005, List.of("Christian Bale"), LocalDate.parse("2005-06-15")))
+                .collect(Collectors.toList());
+
+        var movieInfoService = new MovieInfoService() {
+            @Override
+            public Flux<MovieInfo> retrieveMoviesFlux() {
+                return Flux.fromIterable(catalog);
+            }
+        };
+        movieReactiveService = new MovieReactiveService(movieInfoService, new ReviewService());
+    }
+
+    @Benchmark
+    public Long getAllMovies() {
+        return movieReactiveService.getAllMovies().count().block();
+    }
+}
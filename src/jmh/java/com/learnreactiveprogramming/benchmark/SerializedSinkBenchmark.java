@@ -0,0 +1,95 @@
+package com.learnreactiveprogramming.benchmark;
+
+import com.learnreactiveprogramming.util.SerializedSink;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import reactor.core.Disposable;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Emission throughput into a multicast sink with 1, 4 and 16 producer threads : SerializedSink (MPSC queue, one
+ * emitter at a time) versus retrying FAIL_NON_SERIALIZED with the busy looping handler.
+ * Contended and dropped emissions are printed at the end of each trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializedSinkBenchmark {
+
+    static final Sinks.EmitFailureHandler BUSY_LOOPING = Sinks.EmitFailureHandler.busyLooping(Duration.ofSeconds(1));
+
+    Sinks.Many<Long> busyLoopingSink;
+    SerializedSink<Long> serializedSink;
+    final LongAdder received = new LongAdder();
+    Disposable subscriptions;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        busyLoopingSink = Sinks.many().multicast().directBestEffort();
+        serializedSink = new SerializedSink<>(Sinks.many().multicast().directBestEffort());
+        subscriptions = Disposable.composite(
+                busyLoopingSink.asFlux().subscribe(value -> received.increment()),
+                serializedSink.asFlux().subscribe(value -> received.increment()));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.out.printf("%nreceived %d, serialized sink contended %d, dropped %d%n",
+                received.sum(), serializedSink.getContended(), serializedSink.getDropped());
+        subscriptions.dispose();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void serialized_1() {
+        serializedSink.emitNext(1L);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void serialized_4() {
+        serializedSink.emitNext(1L);
+    }
+
+    @Benchmark
+    @Threads(16)
+    public void serialized_16() {
+        serializedSink.emitNext(1L);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void busyLooping_1() {
+        busyLoopingSink.emitNext(1L, BUSY_LOOPING);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void busyLooping_4() {
+        busyLoopingSink.emitNext(1L, BUSY_LOOPING);
+    }
+
+    @Benchmark
+    @Threads(16)
+    public void busyLooping_16() {
+        busyLoopingSink.emitNext(1L, BUSY_LOOPING);
+    }
+}
@@ -0,0 +1,73 @@
+package com.learnreactiveprogramming.benchmark;
+
+import com.learnreactiveprogramming.domain.MovieInfo;
+import com.learnreactiveprogramming.util.SignalTracing;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+/**
+ * Throughput of a movie info flux with full {@code .log()}, sampled tracing and no tracing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SignalTracingBenchmark {
+
+    @Param({"1000"})
+    int movieCount;
+
+    List<MovieInfo> movieInfos;
+    SignalTracing sampled;
+
+    @Setup
+    public void setUp() {
+        movieInfos = LongStream.rangeClosed(1, movieCount)
+                .mapToObj(id -> new MovieInfo(id, "Movie " + id, 2005, List.of("Christian Bale"), LocalDate.parse("2005-06-15")))
+                .collect(Collectors.toList());
+        sampled = SignalTracing.sampled("benchmark.sampled", 1000, Duration.ofMillis(100));
+    }
+
+    @Benchmark
+    public Long fullLog() {
+        return Flux.fromIterable(movieInfos)
+                .log()
+                .count()
+                .block();
+    }
+
+    @Benchmark
+    public Long sampledTracing() {
+        return Flux.fromIterable(movieInfos)
+                .transform(sampled::traceFlux)
+                .count()
+                .block();
+    }
+
+    @Benchmark
+    public Long noTracing() {
+        return Flux.fromIterable(movieInfos)
+                .transform(SignalTracing.disabled()::traceFlux)
+                .count()
+                .block();
+    }
+}
@@ -0,0 +1,50 @@
+package com.learnreactiveprogramming.benchmark;
+
+import com.learnreactiveprogramming.util.StageLatencyRecorder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of timing a stage : the same Mono subscribed plain and through the recorder. With -prof gc the instrumented
+ * path should not allocate more than the plain one, apart from its subscriber.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StageLatencyRecorderBenchmark {
+
+    Mono<Integer> source;
+    Mono<Integer> timed;
+
+    @Setup
+    public void setUp() {
+        var recorder = new StageLatencyRecorder(Duration.ofSeconds(1));
+        source = Mono.just(1);
+        timed = recorder.mono("benchmark.stage", source);
+    }
+
+    @Benchmark
+    public Integer plain() {
+        return source.block();
+    }
+
+    @Benchmark
+    public Integer recorded() {
+        return timed.block();
+    }
+}
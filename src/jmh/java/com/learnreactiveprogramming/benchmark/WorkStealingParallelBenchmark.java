@@ -0,0 +1,107 @@
+package com.learnreactiveprogramming.benchmark;
+
+import com.learnreactiveprogramming.util.WorkStealingParallel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to push 1024 elements through parallel rails, stock parallel().runOn(..) versus WorkStealingParallel.
+ * <ul>
+ *     <li>uniform : every element costs the same</li>
+ *     <li>strided : every rails-th element is 50 times more expensive, round-robin deals them all to one rail</li>
+ *     <li>random : 1 element in 10 is 50 times more expensive</li>
+ * </ul>
+ * Steals and rail count adjustments are printed at the end of each trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WorkStealingParallelBenchmark {
+
+    static final int ELEMENTS = 1024;
+    static final long CHEAP_TOKENS = 2_000;
+    static final long EXPENSIVE_TOKENS = 50 * CHEAP_TOKENS;
+
+    @Param({"uniform", "strided", "random"})
+    String workload;
+
+    Scheduler scheduler;
+    long[] costs;
+    WorkStealingParallel<Long> workStealing;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        scheduler = Schedulers.newParallel("benchmark", Schedulers.DEFAULT_POOL_SIZE);
+        costs = new long[ELEMENTS];
+        var random = new Random(42);
+        for (int i = 0; i < ELEMENTS; i++) {
+            switch (workload) {
+                case "strided":
+                    costs[i] = i % Schedulers.DEFAULT_POOL_SIZE == 0 ? EXPENSIVE_TOKENS : CHEAP_TOKENS;
+                    break;
+                case "random":
+                    costs[i] = random.nextInt(10) == 0 ? EXPENSIVE_TOKENS : CHEAP_TOKENS;
+                    break;
+                default:
+                    costs[i] = CHEAP_TOKENS;
+            }
+        }
+        workStealing = new WorkStealingParallel<>(source(), scheduler);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.out.printf("%nsteals %d, rail count adjustments %d, active rails %d%n",
+                workStealing.getSteals(), workStealing.getAdjustments(), workStealing.getActiveRails());
+        scheduler.dispose();
+    }
+
+    @Benchmark
+    public Long stockRails() {
+        return source().parallel()
+                .runOn(scheduler)
+                .map(this::work)
+                .sequential()
+                .count()
+                .block();
+    }
+
+    @Benchmark
+    public Long workStealingRails() {
+        return workStealing.map(this::work)
+                .sequential()
+                .count()
+                .block();
+    }
+
+    private Flux<Long> source() {
+        return Flux.range(0, ELEMENTS)
+                .map(Integer::longValue);
+    }
+
+    private long work(long index) {
+        Blackhole.consumeCPU(costs[(int) index]);
+        return index;
+    }
+}
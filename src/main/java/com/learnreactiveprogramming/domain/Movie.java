@@ -4,6 +4,7 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.ArrayList;
 import java.util.List;
 
 @Data
@@ -13,10 +14,18 @@ public class Movie {
     private MovieInfo movieInfo;
     private List<Review> reviewList;
     private Revenue revenue;
+    // reviews could not be fetched in time, reviewList is empty
+    private boolean degraded;
 
     public Movie(MovieInfo movieInfo, List<Review> reviewList) {
         this.movieInfo = movieInfo;
         this.reviewList = reviewList;
     }
 
+    public static Movie degraded(MovieInfo movieInfo) {
+        var movie = new Movie(movieInfo, new ArrayList<>());
+        movie.setDegraded(true);
+        return movie;
+    }
+
 }
@@ -0,0 +1,15 @@
+package com.learnreactiveprogramming.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MovieInfoCatalog {
+    private String etag;
+    private List<MovieInfo> movieInfos;
+}
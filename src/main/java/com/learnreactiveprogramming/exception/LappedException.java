@@ -0,0 +1,14 @@
+package com.learnreactiveprogramming.exception;
+
+public class LappedException extends RuntimeException {
+    private final long missed;
+
+    public LappedException(long missed) {
+        super("Subscriber lapped by the producer, " + missed + " events missed");
+        this.missed = missed;
+    }
+
+    public long getMissed() {
+        return missed;
+    }
+}
@@ -11,4 +11,17 @@ public class MovieException extends RuntimeException {
         super(ex);
         this.message = ex.getMessage();
     }
+
+    private MovieException(String message, Throwable cause) {
+        super(message, cause, false, false);
+        this.message = message;
+    }
+
+    /**
+     * For the expected, high frequency failures (error mapping, retries) : keeps the message and the cause
+     * but skips filling in the stack trace.
+     */
+    public static MovieException stackless(Throwable cause) {
+        return new MovieException(cause.getMessage(), cause);
+    }
 }
@@ -12,4 +12,16 @@ public class NetworkException extends RuntimeException {
         super(ex);
         this.message = message;
     }
+
+    private NetworkException(String message, Throwable cause) {
+        super(message, cause, false, false);
+        this.message = message;
+    }
+
+    /**
+     * Stackless variant, see {@link MovieException#stackless(Throwable)}.
+     */
+    public static NetworkException stackless(Throwable cause) {
+        return new NetworkException(cause.getMessage(), cause);
+    }
 }
@@ -6,4 +6,16 @@ public class ReviewException extends RuntimeException {
         super(message);
         this.message = message;
     }
+
+    private ReviewException(String message, Throwable cause) {
+        super(message, cause, false, false);
+        this.message = message;
+    }
+
+    /**
+     * Stackless variant, see {@link MovieException#stackless(Throwable)}.
+     */
+    public static ReviewException stackless(Throwable cause) {
+        return new ReviewException(cause.getMessage(), cause);
+    }
 }
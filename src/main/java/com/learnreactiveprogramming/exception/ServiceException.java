@@ -11,4 +11,16 @@ public class ServiceException extends RuntimeException {
         super(ex);
         this.message = ex.getMessage();
     }
+
+    private ServiceException(String message, Throwable cause) {
+        super(message, cause, false, false);
+        this.message = message;
+    }
+
+    /**
+     * Stackless variant, see {@link MovieException#stackless(Throwable)}.
+     */
+    public static ServiceException stackless(Throwable cause) {
+        return new ServiceException(cause.getMessage(), cause);
+    }
 }
@@ -0,0 +1,127 @@
+package com.learnreactiveprogramming.service;
+
+import com.learnreactiveprogramming.util.AdaptiveLimiter;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Controls how the movie aggregation fans out to the review calls : how many are in flight at once,
+ * how many movie infos are prefetched and whether the movies are emitted in source order.
+ * Tracks the inner calls in flight per aggregation request, exposed as the total and the busiest request (request ids
+ * are unbounded, they are not meant to be metric tags).
+ * With an {@link AdaptiveLimiter} the calls in flight follow the observed latency, maxConcurrency only caps it.
+ */
+public class AggregationStrategy {
+
+    public static final int DEFAULT_MAX_CONCURRENCY = 16;
+    public static final int DEFAULT_PREFETCH = 32;
+
+    private final int maxConcurrency;
+    private final int prefetch;
+    private final boolean ordered;
+    private final AdaptiveLimiter limiter;
+
+    private final AtomicLong requestIds = new AtomicLong();
+    private final Map<Long, AtomicInteger> inFlightByRequest = new ConcurrentHashMap<>();
+
+    public AggregationStrategy(int maxConcurrency, int prefetch, boolean ordered) {
+        this(maxConcurrency, prefetch, ordered, null);
+    }
+
+    private AggregationStrategy(int maxConcurrency, int prefetch, boolean ordered, AdaptiveLimiter limiter) {
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("maxConcurrency > 0 required but it was " + maxConcurrency);
+        }
+        if (prefetch <= 0) {
+            throw new IllegalArgumentException("prefetch > 0 required but it was " + prefetch);
+        }
+        this.maxConcurrency = maxConcurrency;
+        this.prefetch = prefetch;
+        this.ordered = ordered;
+        this.limiter = limiter;
+    }
+
+    public static AggregationStrategy defaults() {
+        return defaults(true);
+    }
+
+    public static AggregationStrategy defaults(boolean ordered) {
+        return new AggregationStrategy(DEFAULT_MAX_CONCURRENCY, DEFAULT_PREFETCH, ordered);
+    }
+
+    public static AggregationStrategy adaptive(AdaptiveLimiter limiter) {
+        return new AggregationStrategy(limiter.getMaxLimit(), DEFAULT_PREFETCH, true, limiter);
+    }
+
+    public <T, R> Flux<R> aggregate(Flux<T> source, Function<? super T, ? extends Publisher<? extends R>> mapper) {
+        return Flux.defer(() -> {
+            var requestId = requestIds.incrementAndGet();
+            var inFlight = new AtomicInteger();
+            inFlightByRequest.put(requestId, inFlight);
+
+            Function<T, Publisher<R>> tracked = value -> inner(mapper, value)
+                    .doOnSubscribe(s -> inFlight.incrementAndGet())
+                    .doFinally(signalType -> inFlight.decrementAndGet());
+
+            var aggregated = ordered
+                    ? source.flatMapSequential(tracked, maxConcurrency, prefetch)
+                    : source.flatMap(tracked, maxConcurrency, prefetch);
+
+            return aggregated.doFinally(signalType -> inFlightByRequest.remove(requestId));
+        });
+    }
+
+    private <T, R> Flux<R> inner(Function<? super T, ? extends Publisher<? extends R>> mapper, T value) {
+        if (limiter == null) {
+            return Flux.from(mapper.apply(value));
+        }
+        return limiter.run(() -> Flux.<R>from(mapper.apply(value)));
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public int getPrefetch() {
+        return prefetch;
+    }
+
+    public boolean isOrdered() {
+        return ordered;
+    }
+
+    public AdaptiveLimiter getLimiter() {
+        return limiter;
+    }
+
+    /**
+     * Ad-hoc snapshot of the inner calls currently in flight, keyed by aggregation request id.
+     */
+    public Map<Long, Integer> inFlightSnapshot() {
+        return inFlightByRequest.entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().get()));
+    }
+
+    public int totalInFlight() {
+        return inFlightByRequest.values().stream()
+                .mapToInt(AtomicInteger::get)
+                .sum();
+    }
+
+    /**
+     * Inner calls in flight for the busiest aggregation request, at most maxConcurrency.
+     */
+    public int maxInFlightPerRequest() {
+        return inFlightByRequest.values().stream()
+                .mapToInt(AtomicInteger::get)
+                .max()
+                .orElse(0);
+    }
+}
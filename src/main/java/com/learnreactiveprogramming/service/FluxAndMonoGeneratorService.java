@@ -1,6 +1,8 @@
 package com.learnreactiveprogramming.service;
 
 import com.learnreactiveprogramming.exception.ReactorException;
+import com.learnreactiveprogramming.util.LatencySimulator;
+import com.learnreactiveprogramming.util.TraceContext;
 import lombok.extern.slf4j.Slf4j;
 import reactor.core.Exceptions;
 import reactor.core.publisher.Flux;
@@ -21,6 +23,11 @@ import static com.learnreactiveprogramming.util.CommonUtil.delay;
 @Slf4j
 public class FluxAndMonoGeneratorService {
 
+    private LatencySimulator latency = LatencySimulator.fixed(Duration.ofMillis(1000));
+
+    public void setLatency(LatencySimulator latency) {
+        this.latency = latency;
+    }
 
     public Flux<String> namesFlux() {
         return Flux.fromIterable(List.of("alex", "ben", "chloe")); // coming from a db or remote service
@@ -528,6 +535,11 @@ public class FluxAndMonoGeneratorService {
         return List.of("alex", "ben", "chloe");
     }
 
+    // same as names() but the latency is waited on the timer instead of blocking the calling thread
+    public Mono<List<String>> namesAsync() {
+        return latency.supply(() -> List.of("alex", "ben", "chloe"));
+    }
+
     public Flux<String> explore_create() {
 
         return Flux.create(sink -> {
@@ -706,7 +718,8 @@ public class FluxAndMonoGeneratorService {
                     delay(1000);
                     return length;
                 })
-                .log();
+                .log()
+                .transform(TraceContext::flux);
     }
 
     public Flux<Integer> generateLongFlux_withException(int maxNum) {
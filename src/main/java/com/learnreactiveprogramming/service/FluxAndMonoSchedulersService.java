@@ -1,5 +1,8 @@
 package com.learnreactiveprogramming.service;
 
+import com.learnreactiveprogramming.util.LatencySimulator;
+import com.learnreactiveprogramming.util.TraceContext;
+import com.learnreactiveprogramming.util.WorkStealingParallel;
 import lombok.extern.slf4j.Slf4j;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -17,6 +20,20 @@ public class FluxAndMonoSchedulersService {
     static List<String> namesList = List.of("alex", "ben", "chloe");
     static List<String> namesList1 = List.of("adam", "jill", "jack");
 
+    private LatencySimulator latency = LatencySimulator.fixed(Duration.ofMillis(1000));
+    private WorkStealingParallel.Settings workStealing;
+
+    public void setLatency(LatencySimulator latency) {
+        this.latency = latency;
+    }
+
+    /**
+     * Opt-in work stealing rails for explore_parallel and explore_parallel_1, stock parallel().runOn(..) by default.
+     */
+    public void setWorkStealing(WorkStealingParallel.Settings workStealing) {
+        this.workStealing = workStealing;
+    }
+
     public Flux<String> explore_publishOn() {
         // start without publish on
         // add publishon Schedulers.parallel()
@@ -44,9 +61,7 @@ public class FluxAndMonoSchedulersService {
 
         log.info("no of cores : {}", Runtime.getRuntime().availableProcessors());
 
-        var namesFlux = Flux.fromIterable(namesList)
-                .parallel()
-                .runOn(Schedulers.parallel())
+        var namesFlux = runOnParallel(Flux.fromIterable(namesList))
                 .map(this::upperCase)
                 .log();
 
@@ -57,7 +72,7 @@ public class FluxAndMonoSchedulersService {
 
         var namesFlux = Flux.fromIterable(namesList)
                 .flatMap(name -> Mono.just(name)
-                        .map(this::upperCase)
+                        .flatMap(this::upperCaseAsync)
                         .subscribeOn(Schedulers.parallel()))
                         .log();
 
@@ -71,13 +86,13 @@ public class FluxAndMonoSchedulersService {
 
         var namesFlux = Flux.fromIterable(namesList)
                 .flatMap(name -> Mono.just(name)
-                        .map(this::upperCase)
+                        .flatMap(this::upperCaseAsync)
                         .subscribeOn(Schedulers.parallel()))
                 .log();
 
         var namesFlux1 = Flux.fromIterable(namesList1)
                 .flatMap(name -> Mono.just(name)
-                        .map(this::upperCase)
+                        .flatMap(this::upperCaseAsync)
                         .subscribeOn(Schedulers.parallel()))
                 .map((s) -> {
                     log.info("Value of s is {}", s);
@@ -93,7 +108,7 @@ public class FluxAndMonoSchedulersService {
         var namesFlux = Flux.fromIterable(namesList)
                 .flatMapSequential(name -> {
                     return Mono.just(name)
-                            .map(this::upperCase)
+                            .flatMap(this::upperCaseAsync)
                             .subscribeOn(Schedulers.parallel());
 
                 })
@@ -124,9 +139,7 @@ public class FluxAndMonoSchedulersService {
                 })
                 .log();
 
-        return namesFlux.mergeWith(namesFlux1)
-                .parallel()
-                .runOn(Schedulers.parallel());
+        return runOnParallel(namesFlux.mergeWith(namesFlux1));
     }
 
 
@@ -181,7 +194,9 @@ public class FluxAndMonoSchedulersService {
                 })
                 .log();
 
-        return namesFlux.mergeWith(namesFlux1);
+        // the trace id from the Context follows both hops, see TraceContext.installSchedulerHook
+        return namesFlux.mergeWith(namesFlux1)
+                .transform(TraceContext::flux);
     }
 
     public Flux<String> flux1() {
@@ -196,11 +211,24 @@ public class FluxAndMonoSchedulersService {
         return namesFlux;
     }
 
+    private ParallelFlux<String> runOnParallel(Flux<String> flux) {
+        if (workStealing == null) {
+            return flux.parallel()
+                    .runOn(Schedulers.parallel());
+        }
+        return new WorkStealingParallel<>(flux, Schedulers.parallel(), workStealing);
+    }
+
     private String upperCase(String name) {
         delay(1000);
         return name.toUpperCase();
     }
 
+    // does not hold the parallel worker while the latency elapses
+    private Mono<String> upperCaseAsync(String name) {
+        return latency.supply(name::toUpperCase);
+    }
+
     public static void main(String[] args) throws InterruptedException {
 
         Flux.just("hello")
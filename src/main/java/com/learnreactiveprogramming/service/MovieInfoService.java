@@ -1,42 +1,150 @@
 package com.learnreactiveprogramming.service;
 
 import com.learnreactiveprogramming.domain.MovieInfo;
+import com.learnreactiveprogramming.domain.MovieInfoCatalog;
+import com.learnreactiveprogramming.util.HedgingPolicy;
+import com.learnreactiveprogramming.util.LatencySimulator;
+import com.learnreactiveprogramming.util.ReactiveMetrics;
+import com.learnreactiveprogramming.util.SignalTracing;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static com.learnreactiveprogramming.util.CommonUtil.delay;
 
 public class MovieInfoService {
 
+    static final int MAX_MOVIE_INFO_SIZE = 64 * 1024;
+
     private WebClient webClient;
+    // NDJSON clients by max element size, the default one built with the service
+    private final Map<Integer, WebClient> streamingWebClients = new ConcurrentHashMap<>();
+    private SignalTracing tracing = SignalTracing.disabled();
+    private LatencySimulator latency = LatencySimulator.fixed(Duration.ofMillis(1000));
+    private HedgingPolicy hedging = HedgingPolicy.disabled();
+    private ReactiveMetrics metrics = ReactiveMetrics.disabled();
 
     public MovieInfoService(WebClient webClient) {
         this.webClient = webClient;
+        streamingWebClient(MAX_MOVIE_INFO_SIZE);
+    }
+
+    public MovieInfoService(WebClientFactory webClientFactory) {
+        this(webClientFactory.webClient());
     }
 
     public MovieInfoService(){
 
     }
 
+    /**
+     * Opt-in signal tracing for the rest calls, disabled by default.
+     */
+    public void setTracing(SignalTracing tracing) {
+        this.tracing = tracing;
+    }
+
+    public void setLatency(LatencySimulator latency) {
+        this.latency = latency;
+    }
+
+    /**
+     * Opt-in hedged requests for retrieveMovieInfoById_RestClient, disabled by default.
+     */
+    public void setHedging(HedgingPolicy hedging) {
+        this.hedging = hedging;
+    }
+
+    /**
+     * Opt-in Micrometer metrics for every Flux and Mono returned, disabled by default.
+     */
+    public void setMetrics(ReactiveMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    // null on the Mockito mocks calling real methods, they skip the field initializers
+    private ReactiveMetrics metrics() {
+        return metrics == null ? ReactiveMetrics.disabled() : metrics;
+    }
+
     public Flux<MovieInfo> retrieveAllMovieInfo_RestClient(){
 
         return webClient.get().uri("/v1/movie_infos")
                 .retrieve()
                 .bodyToFlux(MovieInfo.class)
-                .log();
+                .transform(tracing::traceFlux)
+                .transform(metrics().flux("movieInfoService.retrieveAllMovieInfo_RestClient"));
 
     }
 
-    public Mono<MovieInfo> retrieveMovieInfoById_RestClient(Long movieInfoId){
+    public Flux<MovieInfo> retrieveAllMovieInfo_RestClient_stream(){
+        return retrieveAllMovieInfo_RestClient_stream(MAX_MOVIE_INFO_SIZE);
+    }
+
+    /**
+     * Streams the catalog as newline delimited json (or a json array when the server can't), each MovieInfo is
+     * decoded as soon as its bytes arrive. maxMovieInfoSize caps the bytes buffered for a single element.
+     */
+    public Flux<MovieInfo> retrieveAllMovieInfo_RestClient_stream(int maxMovieInfoSize){
 
-        return webClient.get().uri("/v1/movie_infos/{id}", movieInfoId)
+        return streamingWebClient(maxMovieInfoSize)
+                .get().uri("/v1/movie_infos")
+                .accept(MediaType.APPLICATION_NDJSON, MediaType.APPLICATION_JSON)
                 .retrieve()
-                .bodyToMono(MovieInfo.class)
-                .log();
+                .bodyToFlux(MovieInfo.class)
+                .transform(tracing::traceFlux)
+                .transform(metrics().flux("movieInfoService.retrieveAllMovieInfo_RestClient_stream"));
+    }
+
+    private WebClient streamingWebClient(int maxMovieInfoSize) {
+        return streamingWebClients.computeIfAbsent(maxMovieInfoSize, size -> webClient.mutate()
+                .codecs(configurer -> configurer.defaultCodecs().maxInMemorySize(size))
+                .build());
+    }
+
+    /**
+     * Conditional fetch of the whole catalog, completes empty when the server answers 304 Not Modified for etag.
+     * A null etag always fetches.
+     */
+    public Mono<MovieInfoCatalog> retrieveAllMovieInfo_RestClient_ifNoneMatch(String etag){
+
+        return webClient.get().uri("/v1/movie_infos")
+                .headers(headers -> {
+                    if (etag != null) {
+                        headers.setIfNoneMatch(etag);
+                    }
+                })
+                .exchangeToMono(response -> {
+                    if (response.statusCode() == HttpStatus.NOT_MODIFIED) {
+                        return response.releaseBody().then(Mono.<MovieInfoCatalog>empty());
+                    }
+                    if (response.statusCode().isError()) {
+                        return response.<MovieInfoCatalog>createError();
+                    }
+                    var newEtag = response.headers().asHttpHeaders().getETag();
+                    return response.bodyToFlux(MovieInfo.class)
+                            .collectList()
+                            .map(movieInfos -> new MovieInfoCatalog(newEtag, movieInfos));
+                })
+                .transform(tracing::traceMono)
+                .transform(metrics().mono("movieInfoService.retrieveAllMovieInfo_RestClient_ifNoneMatch"));
+    }
+
+    public Mono<MovieInfo> retrieveMovieInfoById_RestClient(Long movieInfoId){
+
+        return hedging.hedge(() -> webClient.get().uri("/v1/movie_infos/{id}", movieInfoId)
+                        .retrieve()
+                        .bodyToMono(MovieInfo.class))
+                .transform(tracing::traceMono)
+                .transform(metrics().mono("movieInfoService.retrieveMovieInfoById_RestClient"));
 
     }
 
@@ -46,7 +154,8 @@ public class MovieInfoService {
                 new MovieInfo(101L,"The Dark Knight", 2008, List.of("Christian Bale", "HeathLedger"), LocalDate.parse("2008-07-18")),
                 new MovieInfo(102L,"Dark Knight Rises", 2008, List.of("Christian Bale", "Tom Hardy"), LocalDate.parse("2012-07-20")));
 
-        return Flux.fromIterable(movieInfoList);
+        return Flux.fromIterable(movieInfoList)
+                .transform(metrics().flux("movieInfoService.retrieveMoviesFlux"));
     }
 
 
@@ -54,12 +163,22 @@ public class MovieInfoService {
 
         var movie = new MovieInfo(movieId, "Batman Begins", 2005, List.of("Christian Bale", "Michael Cane"), LocalDate.parse("2005-06-15"));
 
-        return Mono.just(movie);
+        return Mono.just(movie)
+                .transform(metrics().mono("movieInfoService.retrieveMovieInfoMonoUsingId"));
     }
 
     public  List<MovieInfo> movieList(){
         delay(1000);
 
+        return movieInfos();
+    }
+
+    public Mono<List<MovieInfo>> movieListAsync(){
+        return latency.supply(this::movieInfos)
+                .transform(metrics().mono("movieInfoService.movieListAsync"));
+    }
+
+    private List<MovieInfo> movieInfos(){
         return List.of(new MovieInfo(100L, "Batman Begins", 2005, List.of("Christian Bale", "Michael Cane"), LocalDate.parse("2005-06-15")),
                 new MovieInfo(101L,"The Dark Knight", 2008, List.of("Christian Bale", "HeathLedger"), LocalDate.parse("2008-07-18")),
                 new MovieInfo(102L,"Dark Knight Rises", 2008, List.of("Christian Bale", "Tom Hardy"), LocalDate.parse("2012-07-20")));
@@ -67,6 +186,15 @@ public class MovieInfoService {
 
     public  MovieInfo retrieveMovieUsingId(long movieId){
         delay(1000);
+        return movieInfo(movieId);
+    }
+
+    public Mono<MovieInfo> retrieveMovieUsingIdAsync(long movieId){
+        return latency.supply(() -> movieInfo(movieId))
+                .transform(metrics().mono("movieInfoService.retrieveMovieUsingIdAsync"));
+    }
+
+    private MovieInfo movieInfo(long movieId){
         return new MovieInfo(movieId, "Batman Begins", 2005, List.of("Christian Bale", "Michael Cane"), LocalDate.parse("2005-06-15"));
     }
 
@@ -1,26 +1,66 @@
 package com.learnreactiveprogramming.service;
 
 import com.learnreactiveprogramming.domain.Movie;
+import com.learnreactiveprogramming.domain.MovieInfo;
+import com.learnreactiveprogramming.domain.MovieInfoCatalog;
 import com.learnreactiveprogramming.domain.Review;
 import com.learnreactiveprogramming.exception.MovieException;
+import com.learnreactiveprogramming.exception.MovieInfoException;
 import com.learnreactiveprogramming.exception.NetworkException;
 import com.learnreactiveprogramming.exception.ServiceException;
+import com.learnreactiveprogramming.util.BlockingSchedulers;
+import com.learnreactiveprogramming.util.CircuitBreaker;
+import com.learnreactiveprogramming.util.ReactiveCache;
+import com.learnreactiveprogramming.util.ReactiveMetrics;
+import com.learnreactiveprogramming.util.RetryBudget;
+import com.learnreactiveprogramming.util.RetryPolicy;
+import com.learnreactiveprogramming.util.StageLatencyRecorder;
 import lombok.extern.slf4j.Slf4j;
-import reactor.core.Exceptions;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
+import reactor.core.scheduler.Scheduler;
 import reactor.util.retry.Retry;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Slf4j
 public class MovieReactiveService {
+    static final int REVIEW_BATCH_SIZE = 50;
+    static final Duration REVIEW_BATCH_WINDOW = Duration.ofMillis(20);
+    static final Duration MOVIE_CACHE_TTL = Duration.ofMinutes(1);
+    static final int MOVIE_CACHE_SIZE = 10_000;
+    static final Duration REVIEW_CALL_TIMEOUT = Duration.ofSeconds(2);
+    static final Duration REQUEST_DEADLINE = Duration.ofSeconds(10);
+    static final Duration POLL_MIN_INTERVAL = Duration.ofSeconds(1);
+    static final Duration POLL_MAX_INTERVAL = Duration.ofSeconds(30);
+    // behind the deprecated static retrySpec(), the services use their own policy
+    private static final RetryPolicy DEFAULT_RETRY_POLICY = defaultRetryPolicy();
+
     private MovieInfoService movieInfoService;
     private ReviewService reviewService;
     private RevenueService revenueService;
+    // null unless set : each method then keeps its own ordering, flatMap or flatMapSequential
+    private AggregationStrategy aggregationStrategy;
+    private final AggregationStrategy unorderedAggregation = AggregationStrategy.defaults(false);
+    private final AggregationStrategy orderedAggregation = AggregationStrategy.defaults(true);
+    private final ReactiveCache<Long, Movie> movieCache = new ReactiveCache<>(MOVIE_CACHE_TTL, MOVIE_CACHE_SIZE);
+    private final Map<Integer, MovieUpdateFeed> updateFeeds = new ConcurrentHashMap<>();
+    private Scheduler blockingScheduler = BlockingSchedulers.defaultScheduler();
+    private CircuitBreaker reviewCircuitBreaker = new CircuitBreaker("reviews", CircuitBreaker.Settings.builder().build());
+    private CircuitBreaker movieInfoCircuitBreaker = new CircuitBreaker("movie_infos", CircuitBreaker.Settings.builder().build());
+    private ReactiveMetrics metrics = ReactiveMetrics.disabled();
+    private StageLatencyRecorder stageLatencies = StageLatencyRecorder.disabled();
+    // one budget for every subscriber of this service, so a flapping review backend is not retried in lockstep
+    private RetryPolicy retryPolicy = defaultRetryPolicy();
 
     public MovieReactiveService(MovieInfoService movieInfoService, ReviewService reviewService) {
         this.movieInfoService = movieInfoService;
@@ -33,80 +73,236 @@ public class MovieReactiveService {
         this.revenueService = revenueService;
     }
 
+    public static RetryPolicy defaultRetryPolicy() {
+        return new RetryPolicy(RetryPolicy.Settings.builder()
+                .maxRetries(3)
+                .minBackoff(Duration.ofMillis(500))
+                .maxBackoff(Duration.ofSeconds(5))
+                .maxTotalDelay(Duration.ofSeconds(10))
+                .retryOn(ex -> ex instanceof MovieException)
+                .build(),
+                new RetryBudget(100, 10));
+    }
+
+    public void setRetryPolicy(RetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+    }
+
+    /**
+     * Overrides the concurrency, prefetch and ordering of every aggregation. Unset, the getAllMovies variants are
+     * unordered and the REST / polling ones keep the source order.
+     */
+    public void setAggregationStrategy(AggregationStrategy aggregationStrategy) {
+        this.aggregationStrategy = aggregationStrategy;
+    }
+
+    public AggregationStrategy getAggregationStrategy() {
+        return aggregationStrategy;
+    }
+
+    /**
+     * Inner calls in flight across all the aggregations of this service, published as the
+     * movieReactiveService.aggregation.inFlight gauge when metrics are enabled.
+     */
+    public int aggregationInFlight() {
+        var inFlight = unorderedAggregation.totalInFlight() + orderedAggregation.totalInFlight();
+        return aggregationStrategy == null ? inFlight : inFlight + aggregationStrategy.totalInFlight();
+    }
+
+    /**
+     * Inner calls in flight for the busiest aggregation request, published as the
+     * movieReactiveService.aggregation.maxInFlightPerRequest gauge when metrics are enabled.
+     */
+    public int aggregationMaxInFlightPerRequest() {
+        var inFlight = Math.max(unorderedAggregation.maxInFlightPerRequest(), orderedAggregation.maxInFlightPerRequest());
+        return aggregationStrategy == null ? inFlight : Math.max(inFlight, aggregationStrategy.maxInFlightPerRequest());
+    }
+
+    private AggregationStrategy aggregation(boolean orderedByDefault) {
+        if (aggregationStrategy != null) {
+            return aggregationStrategy;
+        }
+        return orderedByDefault ? orderedAggregation : unorderedAggregation;
+    }
+
+    /**
+     * Where the blocking bridges (getAllMovieInfo_blockingBridge, getMovieById_blockingBridge) run their blocking calls.
+     * Virtual threads when the JDK supports them, boundedElastic otherwise.
+     */
+    public void setBlockingScheduler(Scheduler blockingScheduler) {
+        this.blockingScheduler = blockingScheduler;
+    }
+
+    /**
+     * Protects the review rest calls, when open the movies are returned degraded, with no reviews.
+     */
+    public void setReviewCircuitBreaker(CircuitBreaker reviewCircuitBreaker) {
+        this.reviewCircuitBreaker = reviewCircuitBreaker;
+    }
+
+    public CircuitBreaker getReviewCircuitBreaker() {
+        return reviewCircuitBreaker;
+    }
+
+    /**
+     * Protects the movie info rest calls, when open they fail fast with a MovieInfoException.
+     */
+    public void setMovieInfoCircuitBreaker(CircuitBreaker movieInfoCircuitBreaker) {
+        this.movieInfoCircuitBreaker = movieInfoCircuitBreaker;
+    }
+
+    public CircuitBreaker getMovieInfoCircuitBreaker() {
+        return movieInfoCircuitBreaker;
+    }
+
+    /**
+     * Opt-in Micrometer metrics for every Flux and Mono returned, disabled by default.
+     */
+    public void setMetrics(ReactiveMetrics metrics) {
+        this.metrics = metrics;
+        metrics.gauge("movieReactiveService.aggregation.inFlight", this, MovieReactiveService::aggregationInFlight);
+        metrics.gauge("movieReactiveService.aggregation.maxInFlightPerRequest", this,
+                MovieReactiveService::aggregationMaxInFlightPerRequest);
+    }
+
+    /**
+     * Opt-in latency histograms for the zipWith / flatMap inputs, as "method.stage", disabled by default.
+     */
+    public void setStageLatencies(StageLatencyRecorder stageLatencies) {
+        this.stageLatencies = stageLatencies;
+    }
+
+    public StageLatencyRecorder getStageLatencies() {
+        return stageLatencies;
+    }
+
     public Flux<Movie> getAllMovies() {
         var movieInfoFlux = movieInfoService.retrieveMoviesFlux();
 
-        var movies = movieInfoFlux
-                .flatMap((movieInfo -> {
-                    Mono<List<Review>> reviewsMono =
+        var movies = aggregation(false).aggregate(movieInfoFlux, movieInfo -> {
+                    Mono<List<Review>> reviewsMono = stageLatencies.mono("getAllMovies.reviews",
                             reviewService.retrieveReviewsFlux(movieInfo.getMovieInfoId())
-                                    .collectList();
+                                    .collectList());
                     return reviewsMono
                             .map(reviewList -> new Movie(movieInfo, reviewList));
-                }))
+                })
                 .onErrorMap((ex) -> {
-                    System.out.println("Exception is " + ex);
                     log.error("Exception is : ", ex);
-                    throw new MovieException(ex.getMessage());
+                    return MovieException.stackless(ex);
                 });
 
-        return movies;
+        return movies.transform(metrics.flux("movieReactiveService.getAllMovies"));
     }
 
     public Flux<Movie> getAllMovies_RestClient() {
+        return getAllMovies_RestClient(REVIEW_BATCH_SIZE, REVIEW_BATCH_WINDOW);
+    }
 
-        var movieInfoFlux = movieInfoService.retrieveAllMovieInfo_RestClient();
+    public Flux<Movie> getAllMovies_RestClient(int batchSize, Duration batchWindow) {
+        return getAllMovies_RestClient(batchSize, batchWindow, REVIEW_CALL_TIMEOUT, REQUEST_DEADLINE);
+    }
 
-        var movies = movieInfoFlux
-                //.flatMap((movieInfo -> {
-                .flatMapSequential((movieInfo -> {
-                    Mono<List<Review>> reviewsMono =
-                            reviewService.retrieveReviewsFlux_RestClient(movieInfo.getMovieInfoId())
-                                    .collectList();
-                    return reviewsMono
-                            .map(movieList -> new Movie(movieInfo, movieList));
-                }))
+    /**
+     * Each review call gets at most reviewTimeout, and never more than what is left of requestDeadline.
+     * Movies whose reviews don't make it in time are emitted degraded, with no reviews, instead of holding back
+     * or failing the whole stream. Once requestDeadline elapses no more movie infos are taken.
+     */
+    public Flux<Movie> getAllMovies_RestClient(int batchSize, Duration batchWindow, Duration reviewTimeout,
+                                               Duration requestDeadline) {
+
+        return Flux.defer(() -> {
+            var deadline = System.nanoTime() + requestDeadline.toNanos();
+
+            // streamed : the first batches are aggregated while the rest of the catalog is still arriving
+            var movieInfoFlux = movieInfoCircuitBreaker.protectFlux(movieInfoService.retrieveAllMovieInfo_RestClient_stream(),
+                            () -> Flux.error(new MovieInfoException("Movie info service is unavailable")))
+                    .take(requestDeadline);
+
+            // collect the ids until the batch is full or the window elapses, then fetch the reviews in one call
+            return aggregation(true).aggregate(movieInfoFlux.bufferTimeout(batchSize, batchWindow),
+                            movieInfos -> moviesForBatch_RestClient(movieInfos, reviewTimeout, deadline));
+        })
                 .onErrorMap((ex) -> {
-                    System.out.println("Exception is " + ex);
-                    ;
                     log.error("Exception is : ", ex);
-                    throw new MovieException(ex.getMessage());
-                });
+                    return MovieException.stackless(ex);
+                })
+                .transform(metrics.flux("movieReactiveService.getAllMovies_RestClient"));
+    }
 
-        return movies;
+    private Flux<Movie> moviesForBatch_RestClient(List<MovieInfo> movieInfos, Duration reviewTimeout, long deadline) {
+        var movieInfoIds = movieInfos.stream()
+                .map(MovieInfo::getMovieInfoId)
+                .collect(Collectors.toList());
+        var timeout = Duration.ofNanos(Math.max(0, Math.min(reviewTimeout.toNanos(), deadline - System.nanoTime())));
+
+        // the timeout is inside the breaker so review calls that hang are counted as failures
+        var reviewsById = stageLatencies.mono("getAllMovies_RestClient.reviews",
+                        reviewService.retrieveReviewsFlux_RestClient(movieInfoIds)
+                                .collectMultimap(Review::getMovieInfoId))
+                .timeout(timeout);
+
+        return reviewCircuitBreaker.protectMono(reviewsById, Mono::empty)
+                // fan the reviews back out in the same order the movie infos arrived
+                .map(reviews -> movieInfos.stream()
+                        .map(movieInfo -> new Movie(movieInfo,
+                                new ArrayList<>(reviews.getOrDefault(movieInfo.getMovieInfoId(), List.of()))))
+                        .collect(Collectors.toList()))
+                .onErrorResume(TimeoutException.class, ex -> Mono.empty())
+                .switchIfEmpty(Mono.fromSupplier(() -> movieInfos.stream()
+                        .map(Movie::degraded)
+                        .collect(Collectors.toList())))
+                .flatMapIterable(Function.identity());
     }
 
     public Flux<Movie> getAllMovies_retry() {
 
         var movieInfoFlux = movieInfoService.retrieveMoviesFlux();
 
-        var movies = movieInfoFlux
-                .flatMap((movieInfo -> {
-                    Mono<List<Review>> reviewsMono = reviewService.retrieveReviewsFlux(movieInfo.getMovieInfoId())
-                            .collectList();
+        var movies = aggregation(false).aggregate(movieInfoFlux, movieInfo -> {
+                    Mono<List<Review>> reviewsMono = stageLatencies.mono("getAllMovies_retry.reviews",
+                            reviewService.retrieveReviewsFlux(movieInfo.getMovieInfoId())
+                                    .collectList());
                     return reviewsMono
                             .map(movieList -> new Movie(movieInfo, movieList));
-                }))
+                })
                 .onErrorMap((ex) -> {
-                    System.out.println("Exception is " + ex);
-                    ;
-                    throw new MovieException(ex.getMessage());
+                    log.error("Exception is : ", ex);
+                    return MovieException.stackless(ex);
                 })
                 //.retry();
                 .retry(3);
 
-        return movies;
+        return movies.transform(metrics.flux("movieReactiveService.getAllMovies_retry"));
     }
 
 
+    /**
+     * Shared default policy, with its own budget.
+     *
+     * @deprecated retryWhen(retrySpec()) doesn't count the successes, and ignores the service's policy : use
+     * {@code flux.transform(service.getRetryPolicy()::retry)}.
+     */
+    @Deprecated
     public static Retry retrySpec() {
 
         //  Retry with a back of 500 ms everytime
         //  return Retry.backoff(3, Duration.ofMillis(500));
 
-        return Retry.fixedDelay(3, Duration.ofMillis(1000))
-                .filter((ex) -> ex instanceof MovieException)
-                .onRetryExhaustedThrow(((retryBackoffSpec, retrySignal) -> Exceptions.propagate(retrySignal.failure())));
+        return DEFAULT_RETRY_POLICY;
+    }
+
+    /**
+     * The retry policy of this service, for {@code flux.transform(policy::retry)}.
+     */
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    /**
+     * Retries attempted, suppressed by the budget / max total delay and succeeded, across all the subscribers.
+     */
+    public RetryPolicy.Metrics retryMetrics() {
+        return retryPolicy.metrics();
     }
 
     public Flux<Movie> getAllMovies_retry_when() {
@@ -115,25 +311,25 @@ public class MovieReactiveService {
 
         var movieInfoFlux = movieInfoService.retrieveMoviesFlux();
 
-        var movies = movieInfoFlux
-                .flatMap((movieInfo -> {
-                    Mono<List<Review>> reviewsMono = reviewService.retrieveReviewsFlux(movieInfo.getMovieInfoId())
-                            .collectList();
+        var movies = aggregation(false).aggregate(movieInfoFlux, movieInfo -> {
+                    Mono<List<Review>> reviewsMono = stageLatencies.mono("getAllMovies_retry_when.reviews",
+                            reviewService.retrieveReviewsFlux(movieInfo.getMovieInfoId())
+                                    .collectList());
                     return reviewsMono
                             .map(movieList -> new Movie(movieInfo, movieList));
-                }))
+                })
 
                 .onErrorMap((ex) -> {
-                    System.out.println("Exception is " + ex);
+                    log.error("Exception is : ", ex);
                     if (ex instanceof NetworkException)
-                        throw new MovieException(ex.getMessage());
+                        return MovieException.stackless(ex);
                     else
-                        throw new ServiceException(ex.getMessage());
+                        return ServiceException.stackless(ex);
                 })
-                .retryWhen(retrySpec());
+                .transform(retryPolicy::retry);
 
 
-        return movies;
+        return movies.transform(metrics.flux("movieReactiveService.getAllMovies_retry_when"));
     }
 
     public Flux<Movie> getAllMovies_repeat() {
@@ -141,25 +337,25 @@ public class MovieReactiveService {
 
         var movieInfoFlux = movieInfoService.retrieveMoviesFlux();
 
-        var movies = movieInfoFlux
-                .flatMap((movieInfo -> {
-                    Mono<List<Review>> reviewsMono = reviewService.retrieveReviewsFlux(movieInfo.getMovieInfoId())
-                            .collectList();
+        var movies = aggregation(false).aggregate(movieInfoFlux, movieInfo -> {
+                    Mono<List<Review>> reviewsMono = stageLatencies.mono("getAllMovies_repeat.reviews",
+                            reviewService.retrieveReviewsFlux(movieInfo.getMovieInfoId())
+                                    .collectList());
                     return reviewsMono
                             .map(movieList -> new Movie(movieInfo, movieList));
-                }))
+                })
                 .onErrorMap((ex) -> {
-                    System.out.println("Exception is " + ex);
+                    log.error("Exception is : ", ex);
                     if (ex instanceof NetworkException)
-                        throw new MovieException(ex.getMessage());
+                        return MovieException.stackless(ex);
                     else
-                        throw new ServiceException(ex.getMessage());
+                        return ServiceException.stackless(ex);
                 })
-                .retryWhen(retrySpec())
+                .transform(retryPolicy::retry)
                 .repeat();
         //.repeat(1);
 
-        return movies;
+        return movies.transform(metrics.flux("movieReactiveService.getAllMovies_repeat"));
     }
 
     public Flux<Movie> getAllMovies_repeatN(long n) {
@@ -167,24 +363,24 @@ public class MovieReactiveService {
 
         var movieInfoFlux = movieInfoService.retrieveMoviesFlux();
 
-        var movies = movieInfoFlux
-                .flatMap((movieInfo -> {
-                    Mono<List<Review>> reviewsMono = reviewService.retrieveReviewsFlux(movieInfo.getMovieInfoId())
-                            .collectList();
+        var movies = aggregation(false).aggregate(movieInfoFlux, movieInfo -> {
+                    Mono<List<Review>> reviewsMono = stageLatencies.mono("getAllMovies_repeatN.reviews",
+                            reviewService.retrieveReviewsFlux(movieInfo.getMovieInfoId())
+                                    .collectList());
                     return reviewsMono
                             .map(movieList -> new Movie(movieInfo, movieList));
-                }))
+                })
                 .onErrorMap((ex) -> {
-                    System.out.println("Exception is " + ex);
+                    log.error("Exception is : ", ex);
                     if (ex instanceof NetworkException)
-                        throw new MovieException(ex.getMessage());
+                        return MovieException.stackless(ex);
                     else
-                        throw new ServiceException(ex.getMessage());
+                        return ServiceException.stackless(ex);
                 })
-                .retryWhen(retrySpec())
+                .transform(retryPolicy::retry)
                 .repeat(n);
 
-        return movies;
+        return movies.transform(metrics.flux("movieReactiveService.getAllMovies_repeatN"));
     }
 
 
@@ -194,97 +390,242 @@ public class MovieReactiveService {
 
         var movieInfoFlux = movieInfoService.retrieveMoviesFlux();
 
-        var movies = movieInfoFlux
-                .flatMap((movieInfo -> {
-                    Mono<List<Review>> reviewsMono = reviewService.retrieveReviewsFlux(movieInfo.getMovieInfoId())
-                            .collectList();
+        var movies = aggregation(false).aggregate(movieInfoFlux, movieInfo -> {
+                    Mono<List<Review>> reviewsMono = stageLatencies.mono("getAllMovies_repeatWhen.reviews",
+                            reviewService.retrieveReviewsFlux(movieInfo.getMovieInfoId())
+                                    .collectList());
                     return reviewsMono
                             .map(movieList -> new Movie(movieInfo, movieList));
-                }))
+                })
                 .onErrorMap((ex) -> {
-                    System.out.println("Exception is " + ex);
+                    log.error("Exception is : ", ex);
                     if (ex instanceof NetworkException)
-                        throw new MovieException(ex.getMessage());
+                        return MovieException.stackless(ex);
                     else
-                        throw new ServiceException(ex.getMessage());
+                        return ServiceException.stackless(ex);
                 })
-                .retryWhen(retrySpec())
+                .transform(retryPolicy::retry)
                 .repeatWhen((flux) -> Flux.range(0, 1)
                         .delayElements(Duration.ofMillis(1000)));
 
 
-        return movies;
+        return movies.transform(metrics.flux("movieReactiveService.getAllMovies_repeatWhen"));
+    }
+
+    public Flux<Movie> getAllMovies_poll() {
+        return getAllMovies_poll(POLL_MIN_INTERVAL, POLL_MAX_INTERVAL);
+    }
+
+    /**
+     * Polling alternative to the repeat variants above : the catalog is fetched with If-None-Match, a 304 skips the
+     * aggregation, and only the movies that changed since the previous cycle are emitted.
+     * The interval doubles, up to maxInterval, while nothing changes and goes back to minInterval on a change.
+     * Removed movies are dropped from the snapshot but not signalled.
+     */
+    public Flux<Movie> getAllMovies_poll(Duration minInterval, Duration maxInterval) {
+
+        return Flux.defer(() -> {
+            var state = new PollState(minInterval, maxInterval);
+
+            var cycle = Mono.defer(() -> movieInfoService.retrieveAllMovieInfo_RestClient_ifNoneMatch(state.etag))
+                    .flatMapMany(catalog -> {
+                        var deadline = System.nanoTime() + REQUEST_DEADLINE.toNanos();
+                        var movieInfoFlux = Flux.fromIterable(catalog.getMovieInfos()).buffer(REVIEW_BATCH_SIZE);
+                        return aggregation(true).aggregate(movieInfoFlux,
+                                        movieInfos -> moviesForBatch_RestClient(movieInfos, REVIEW_CALL_TIMEOUT, deadline))
+                                .filter(state::changed)
+                                .doOnComplete(() -> state.completed(catalog));
+                    })
+                    .onErrorMap((ex) -> {
+                        log.error("Exception is : ", ex);
+                        return MovieException.stackless(ex);
+                    })
+                    .transform(retryPolicy::retry);
+
+            return cycle.repeatWhen(cycles -> cycles.concatMap(cycleCount -> Mono.delay(state.nextInterval())));
+        })
+                .transform(metrics.flux("movieReactiveService.getAllMovies_poll"));
+    }
+
+    /**
+     * Hot feed over getAllMovies_poll, for many subscribers to share one polling aggregation. One feed per
+     * replaySize and service, a disposed or terminated feed is replaced on the next call. replaySize must be a
+     * power of two.
+     */
+    public MovieUpdateFeed movieUpdateFeed(int replaySize) {
+        return updateFeeds.compute(replaySize, (size, feed) -> feed == null || feed.isDisposed() || feed.isTerminated()
+                ? new MovieUpdateFeed(getAllMovies_poll(), size)
+                : feed);
     }
 
     public Flux<Movie> getAllMovieInfo_1() {
 
-        return Flux.create(sink -> {
-            CompletableFuture.supplyAsync(() -> movieInfoService.movieList())
+        return movieInfoService.movieListAsync()
+                .flatMapIterable(Function.identity())
+                .map(movieInfo -> new Movie(movieInfo, reviewService.retrieveReviews(movieInfo.getMovieInfoId())))
+                .transform(metrics.flux("movieReactiveService.getAllMovieInfo_1"));
+    }
+
+    /**
+     * getAllMovieInfo_1 over the blocking movieList, run on the blocking scheduler.
+     */
+    public Flux<Movie> getAllMovieInfo_blockingBridge() {
+
+        return Flux.<Movie>create(sink -> {
+            CompletableFuture.supplyAsync(() -> movieInfoService.movieList(), BlockingSchedulers.asExecutor(blockingScheduler))
                     .thenAccept((movieInfos -> movieInfos.forEach(movieInfo -> {
                         List<Review> reviewsList = reviewService.retrieveReviews(movieInfo.getMovieInfoId());
                         sink.next(new Movie(movieInfo, reviewsList));
                     })))
                     .thenRun(sink::complete);
-        });
+        })
+                .transform(metrics.flux("movieReactiveService.getAllMovieInfo_blockingBridge"));
     }
 
+    /**
+     * Cached by movieId, concurrent calls for the same movie share one upstream lookup.
+     * The cached Movie instance is handed to every caller until it expires, callers must not modify it (or its
+     * MovieInfo and review list), copy it first.
+     */
     public Mono<Movie> getMovieById(long movieId) {
+        return movieCache.get(movieId, this::loadMovieById)
+                .transform(metrics.mono("movieReactiveService.getMovieById"));
+    }
+
+    public void invalidateMovie(long movieId) {
+        movieCache.invalidate(movieId);
+    }
+
+    public ReactiveCache.Stats movieCacheStats() {
+        return movieCache.stats();
+    }
+
+    private Mono<Movie> loadMovieById(long movieId) {
 
-        var movieInfoMono = movieInfoService.retrieveMovieInfoMonoUsingId(movieId);
-        var reviewList = reviewService.retrieveReviewsFlux(movieId)
-                .collectList();
+        var movieInfoMono = stageLatencies.mono("getMovieById.movieInfo",
+                movieInfoService.retrieveMovieInfoMonoUsingId(movieId));
+        var reviewList = stageLatencies.mono("getMovieById.reviews", reviewService.retrieveReviewsFlux(movieId)
+                .collectList());
 
         return movieInfoMono.zipWith(reviewList, (movienfo, reviews) -> new Movie(movienfo, reviews))
                 .onErrorMap((ex) -> {
-                    System.out.println("Exception is " + ex);
-                    ;
                     log.error("Exception is : ", ex);
-                    throw new MovieException(ex.getMessage());
+                    return MovieException.stackless(ex);
                 });
     }
 
     public Mono<Movie> getMovieById_usingFlatMap(long movieId) {
-        var movieInfoMono = movieInfoService.retrieveMovieInfoMonoUsingId(movieId);
+        var movieInfoMono = stageLatencies.mono("getMovieById_usingFlatMap.movieInfo",
+                movieInfoService.retrieveMovieInfoMonoUsingId(movieId));
         return movieInfoMono
                 .flatMap(movieInfo -> {
-                    Mono<List<Review>> reviewsMono = reviewService.retrieveReviewsFlux(movieInfo.getMovieInfoId())
-                            .collectList();
+                    Mono<List<Review>> reviewsMono = stageLatencies.mono("getMovieById_usingFlatMap.reviews",
+                            reviewService.retrieveReviewsFlux(movieInfo.getMovieInfoId())
+                                    .collectList());
                     return reviewsMono
                             .map(movieList -> new Movie(movieInfo, movieList));
 
-                });
+                })
+                .transform(metrics.mono("movieReactiveService.getMovieById_usingFlatMap"));
     }
 
     public Mono<Movie> getMovieById_RestClient(long movieId) {
-        var movieInfoMono = movieInfoService.retrieveMovieInfoById_RestClient(movieId);
-        var reviewList = reviewService.retrieveReviewsFlux_RestClient(movieId)
-                .collectList();
+        var movieInfoMono = stageLatencies.mono("getMovieById_RestClient.movieInfo",
+                movieInfoCircuitBreaker.protectMono(movieInfoService.retrieveMovieInfoById_RestClient(movieId),
+                        () -> Mono.error(new MovieInfoException("Movie info service is unavailable"))));
+        var reviewList = stageLatencies.mono("getMovieById_RestClient.reviews",
+                reviewCircuitBreaker.protectFlux(reviewService.retrieveReviewsFlux_RestClient(movieId), Flux::empty)
+                        .collectList());
 
-        return movieInfoMono.zipWith(reviewList, (movienfo, reviews) -> new Movie(movienfo, reviews));
+        return movieInfoMono.zipWith(reviewList, (movienfo, reviews) -> new Movie(movienfo, reviews))
+                .transform(metrics.mono("movieReactiveService.getMovieById_RestClient"));
     }
 
     public Mono<Movie> getMovieById_withRevenue(long movieId) {
 
-        var movieInfoMono = movieInfoService.retrieveMovieInfoMonoUsingId(movieId);
-        var reviewList = reviewService.retrieveReviewsFlux(movieId).collectList();
-        var revenueMono = Mono.fromCallable(() -> revenueService.getRevenue(movieId))
-                .subscribeOn(Schedulers.boundedElastic());
+        var movieInfoMono = stageLatencies.mono("getMovieById_withRevenue.movieInfo",
+                movieInfoService.retrieveMovieInfoMonoUsingId(movieId));
+        var reviewList = stageLatencies.mono("getMovieById_withRevenue.reviews",
+                reviewService.retrieveReviewsFlux(movieId).collectList());
+        var revenueMono = stageLatencies.mono("getMovieById_withRevenue.revenue",
+                revenueService.getRevenueAsync(movieId));
 
         return movieInfoMono.zipWith(reviewList, (movieInfo, reviews) -> new Movie(movieInfo, reviews))
                 .zipWith(revenueMono, ((movie, revenue) -> {
                     movie.setRevenue(revenue);
                     return movie;
-                }));
+                }))
+                .transform(metrics.mono("movieReactiveService.getMovieById_withRevenue"));
     }
 
     public Mono<Movie> getMovieById_1(long movieId) {
+        return movieInfoService.retrieveMovieUsingIdAsync(movieId)
+                .map(movieInfo -> new Movie(movieInfo, reviewService.retrieveReviews(movieId)))
+                .transform(metrics.mono("movieReactiveService.getMovieById_1"));
+    }
+
+    /**
+     * getMovieById_1 over the blocking retrieveMovieUsingId, run on the blocking scheduler.
+     */
+    public Mono<Movie> getMovieById_blockingBridge(long movieId) {
         Mono<Movie> movieMono = Mono.create((sink) -> {
-            var movieInfoFuture = CompletableFuture.supplyAsync(() -> movieInfoService.retrieveMovieUsingId(movieId));
-            var reviewsFuture = CompletableFuture.supplyAsync(() -> reviewService.retrieveReviews(movieId));
+            var executor = BlockingSchedulers.asExecutor(blockingScheduler);
+            var movieInfoFuture = CompletableFuture.supplyAsync(() -> movieInfoService.retrieveMovieUsingId(movieId), executor);
+            var reviewsFuture = CompletableFuture.supplyAsync(() -> reviewService.retrieveReviews(movieId), executor);
 
             movieInfoFuture.thenCombine(reviewsFuture, (movieInfo, reviews) -> new Movie(movieInfo, reviews))
                     .thenAccept(sink::success);
         });
-        return movieMono;
+        return movieMono.transform(metrics.mono("movieReactiveService.getMovieById_blockingBridge"));
+    }
+
+    // one per poll subscription, only touched by the sequential poll cycles
+    private static class PollState {
+        private final Duration minInterval;
+        private final Duration maxInterval;
+        private final Map<Long, Movie> movies = new HashMap<>();
+        private String etag;
+        private Duration interval;
+        private boolean changedInCycle;
+
+        PollState(Duration minInterval, Duration maxInterval) {
+            this.minInterval = minInterval;
+            this.maxInterval = maxInterval;
+            this.interval = minInterval;
+        }
+
+        boolean changed(Movie movie) {
+            var movieInfoId = movie.getMovieInfo().getMovieInfoId();
+            var previous = movies.get(movieInfoId);
+            // keep the last good reviews rather than flapping to a degraded movie
+            if (movie.isDegraded() && previous != null) {
+                return false;
+            }
+            if (movie.equals(previous)) {
+                return false;
+            }
+            movies.put(movieInfoId, movie);
+            changedInCycle = true;
+            return true;
+        }
+
+        void completed(MovieInfoCatalog catalog) {
+            etag = catalog.getEtag();
+            var movieInfoIds = catalog.getMovieInfos().stream()
+                    .map(MovieInfo::getMovieInfoId)
+                    .collect(Collectors.toSet());
+            movies.keySet().retainAll(movieInfoIds);
+        }
+
+        Duration nextInterval() {
+            if (changedInCycle) {
+                interval = minInterval;
+            } else {
+                var doubled = interval.multipliedBy(2);
+                interval = doubled.compareTo(maxInterval) > 0 ? maxInterval : doubled;
+            }
+            changedInCycle = false;
+            return interval;
+        }
     }
-}
\ No newline at end of file
+}
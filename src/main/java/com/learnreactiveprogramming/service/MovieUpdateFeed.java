@@ -0,0 +1,102 @@
+package com.learnreactiveprogramming.service;
+
+import com.learnreactiveprogramming.domain.Movie;
+import com.learnreactiveprogramming.util.ReplayRing;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+
+import java.util.function.LongConsumer;
+
+/**
+ * Hot movie update feed : one upstream aggregation shared by every subscriber, connected by the first one and
+ * disconnected when the last one leaves (refCount). The next subscriber connects it again.
+ * Late subscribers get the last replaySize movies first, see {@link ReplayRing}.
+ */
+public class MovieUpdateFeed {
+
+    private final Flux<Movie> upstream;
+    private final ReplayRing<Movie> ring;
+
+    // guarded by this
+    private int subscribers;
+    private Disposable connection;
+    private boolean disposed;
+    private volatile boolean terminated;
+
+    public MovieUpdateFeed(Flux<Movie> upstream, int replaySize) {
+        this.upstream = upstream;
+        this.ring = new ReplayRing<>(replaySize);
+    }
+
+    /**
+     * Fails with a LappedException when the subscriber falls more than replaySize movies behind.
+     */
+    public Flux<Movie> updates() {
+        return ring.asFlux()
+                .doOnSubscribe(subscription -> connect())
+                .doFinally(signal -> release());
+    }
+
+    public Flux<Movie> updates(LongConsumer onLapped) {
+        return ring.asFlux(onLapped)
+                .doOnSubscribe(subscription -> connect())
+                .doFinally(signal -> release());
+    }
+
+    public synchronized boolean isConnected() {
+        return connection != null;
+    }
+
+    public synchronized boolean isDisposed() {
+        return disposed;
+    }
+
+    /**
+     * The upstream completed or failed, retries exhausted : the feed won't get any update any more.
+     */
+    public boolean isTerminated() {
+        return terminated;
+    }
+
+    public void dispose() {
+        synchronized (this) {
+            disposed = true;
+            disconnect();
+        }
+        ring.emitComplete();
+    }
+
+    private synchronized void connect() {
+        if (subscribers++ > 0 || disposed || terminated) {
+            return;
+        }
+        var subscribed = upstream.subscribe(ring::emitNext,
+                throwable -> {
+                    terminated = true;
+                    ring.emitError(throwable);
+                },
+                () -> {
+                    terminated = true;
+                    ring.emitComplete();
+                });
+        // every subscriber may already be gone when the upstream emits synchronously
+        if (subscribers == 0) {
+            subscribed.dispose();
+        } else {
+            connection = subscribed;
+        }
+    }
+
+    private synchronized void release() {
+        if (--subscribers == 0) {
+            disconnect();
+        }
+    }
+
+    private void disconnect() {
+        if (connection != null) {
+            connection.dispose();
+            connection = null;
+        }
+    }
+}
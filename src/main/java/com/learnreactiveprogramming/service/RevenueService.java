@@ -1,17 +1,59 @@
 package com.learnreactiveprogramming.service;
 
 import com.learnreactiveprogramming.domain.Revenue;
+import com.learnreactiveprogramming.util.LatencySimulator;
+import com.learnreactiveprogramming.util.ReactiveCache;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Collection;
 
 import static com.learnreactiveprogramming.util.CommonUtil.delay;
 
 public class RevenueService {
 
+    static final Duration REVENUE_TTL = Duration.ofMinutes(5);
+    static final int REVENUE_CACHE_SIZE = 10_000;
+
+    private final ReactiveCache<Long, Revenue> revenueCache = new ReactiveCache<>(REVENUE_TTL, REVENUE_CACHE_SIZE);
+    private LatencySimulator latency = LatencySimulator.fixed(Duration.ofMillis(1000));
+
+    public void setLatency(LatencySimulator latency) {
+        this.latency = latency;
+    }
+
     public Revenue getRevenue(Long movieId) {
         delay(1000); // simulating a network call ( DB or Rest call)
+        return revenue(movieId);
+    }
+
+    public Mono<Revenue> getRevenueAsync(Long movieId) {
+        return revenueCache.get(movieId, this::fetchRevenue);
+    }
+
+    public Flux<Revenue> getRevenues(Collection<Long> movieIds) {
+        return Flux.fromIterable(movieIds)
+                .flatMapSequential(this::getRevenueAsync);
+    }
+
+    public void invalidate(Long movieId) {
+        revenueCache.invalidate(movieId);
+    }
+
+    public ReactiveCache.Stats revenueCacheStats() {
+        return revenueCache.stats();
+    }
+
+    private Mono<Revenue> fetchRevenue(Long movieId) {
+        return latency.supply(() -> revenue(movieId)); // simulating a network call on a timer, no thread is held
+    }
+
+    private Revenue revenue(Long movieId) {
         return Revenue.builder()
                 .movieInfoId(movieId)
                 .budget(1000000)
                 .boxOffice(5000000)
                 .build();
     }
-}
\ No newline at end of file
+}
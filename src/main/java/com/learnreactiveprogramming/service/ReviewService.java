@@ -2,28 +2,58 @@ package com.learnreactiveprogramming.service;
 
 import com.learnreactiveprogramming.domain.MovieInfo;
 import com.learnreactiveprogramming.domain.Review;
+import com.learnreactiveprogramming.util.ReactiveMetrics;
+import com.learnreactiveprogramming.util.SignalTracing;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.util.UriComponentsBuilder;
 import reactor.core.publisher.Flux;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Collectors;
 
 public class ReviewService {
 
     private WebClient webClient;
+    private SignalTracing tracing = SignalTracing.disabled();
+    private ReactiveMetrics metrics = ReactiveMetrics.disabled();
 
     public ReviewService(WebClient webClient) {
         this.webClient = webClient;
     }
 
+    public ReviewService(WebClientFactory webClientFactory) {
+        this(webClientFactory.webClient());
+    }
+
     public ReviewService() {
     }
 
+    /**
+     * Opt-in signal tracing for the rest calls, disabled by default.
+     */
+    public void setTracing(SignalTracing tracing) {
+        this.tracing = tracing;
+    }
+
+    /**
+     * Opt-in Micrometer metrics for every Flux returned, disabled by default.
+     */
+    public void setMetrics(ReactiveMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    // null on the Mockito mocks calling real methods, they skip the field initializers
+    private ReactiveMetrics metrics() {
+        return metrics == null ? ReactiveMetrics.disabled() : metrics;
+    }
+
     public Flux<Review> retrieveAllReviews_RestClient() {
         return webClient.get().uri("/v1/reviews")
                 .retrieve()
                 .bodyToFlux(Review.class)
-                .log();
+                .transform(tracing::traceFlux)
+                .transform(metrics().flux("reviewService.retrieveAllReviews_RestClient"));
     }
 
     public Flux<Review> retrieveReviewsFlux_RestClient(Long movieInfoId) {
@@ -35,7 +65,24 @@ public class ReviewService {
         return webClient.get().uri(uri)
                 .retrieve()
                 .bodyToFlux(Review.class)
-                .log();
+                .transform(tracing::traceFlux)
+                .transform(metrics().flux("reviewService.retrieveReviewsFlux_RestClient"));
+    }
+
+    public Flux<Review> retrieveReviewsFlux_RestClient(Collection<Long> movieInfoIds) {
+        // one call for the whole batch : /v1/reviews?movieInfoId=1,2,3
+        var uri = UriComponentsBuilder.fromUriString("/v1/reviews")
+                .queryParam("movieInfoId", movieInfoIds.stream()
+                        .map(String::valueOf)
+                        .collect(Collectors.joining(",")))
+                .buildAndExpand()
+                .toUriString();
+
+        return webClient.get().uri(uri)
+                .retrieve()
+                .bodyToFlux(Review.class)
+                .transform(tracing::traceFlux)
+                .transform(metrics().flux("reviewService.retrieveReviewsFlux_RestClient_batch"));
     }
 
     public List<Review> retrieveReviews(long movieInfoId) {
@@ -48,6 +95,7 @@ public class ReviewService {
         var reviewsList = List.of(
                 new Review(1L, movieInfoId, "Awesome Movie", 8.9),
                 new Review(2L, movieInfoId, "Excellent Movie", 9.0));
-        return Flux.fromIterable(reviewsList);
+        return Flux.fromIterable(reviewsList)
+                .transform(metrics().flux("reviewService.retrieveReviewsFlux"));
     }
 }
\ No newline at end of file
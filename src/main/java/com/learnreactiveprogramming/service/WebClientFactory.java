@@ -0,0 +1,128 @@
+package com.learnreactiveprogramming.service;
+
+import lombok.Builder;
+import lombok.Value;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionPoolMetrics;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.net.SocketAddress;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Builds the WebClients for MovieInfoService and ReviewService on top of one shared, tuned connection pool.
+ */
+public class WebClientFactory {
+
+    private final Settings settings;
+    private final Map<String, ConnectionPoolMetrics> poolMetrics = new ConcurrentHashMap<>();
+    private final ConnectionProvider connectionProvider;
+    private final WebClient webClient;
+
+    public WebClientFactory(Settings settings) {
+        this.settings = settings;
+        this.connectionProvider = ConnectionProvider.builder(settings.getPoolName())
+                .maxConnections(settings.getMaxConnections())
+                .pendingAcquireMaxCount(settings.getPendingAcquireMaxCount())
+                .pendingAcquireTimeout(settings.getPendingAcquireTimeout())
+                .maxIdleTime(settings.getMaxIdleTime())
+                .maxLifeTime(settings.getMaxLifeTime())
+                .evictInBackground(settings.getEvictionInterval())
+                .metrics(true, () -> new PoolMetricsRegistrar())
+                .build();
+
+        var httpClient = HttpClient.create(connectionProvider)
+                .keepAlive(true)
+                .compress(settings.isCompress())
+                .responseTimeout(settings.getResponseTimeout());
+        if (settings.isHttp2()) {
+            httpClient = httpClient.protocol(HttpProtocol.H2, HttpProtocol.HTTP11);
+        }
+
+        this.webClient = WebClient.builder()
+                .baseUrl(settings.getBaseUrl())
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
+    }
+
+    public WebClient webClient() {
+        return webClient;
+    }
+
+    public Settings getSettings() {
+        return settings;
+    }
+
+    /**
+     * Snapshot of the pool for every remote address it has connected to.
+     */
+    public List<PoolStats> poolStats() {
+        return poolMetrics.entrySet().stream()
+                .map(entry -> new PoolStats(entry.getKey(),
+                        entry.getValue().acquiredSize(),
+                        entry.getValue().idleSize(),
+                        entry.getValue().pendingAcquireSize(),
+                        entry.getValue().maxAllocatedSize()))
+                .collect(Collectors.toList());
+    }
+
+    public void dispose() {
+        connectionProvider.dispose();
+    }
+
+    private class PoolMetricsRegistrar implements ConnectionProvider.MeterRegistrar {
+
+        @Override
+        public void registerMetrics(String poolName, String id, SocketAddress remoteAddress, ConnectionPoolMetrics metrics) {
+            poolMetrics.put(String.valueOf(remoteAddress), metrics);
+        }
+
+        @Override
+        public void deRegisterMetrics(String poolName, String id, SocketAddress remoteAddress) {
+            poolMetrics.remove(String.valueOf(remoteAddress));
+        }
+    }
+
+    @Value
+    @Builder
+    public static class Settings {
+        @Builder.Default
+        String baseUrl = "http://localhost:8080/movies";
+        @Builder.Default
+        String poolName = "movies";
+        @Builder.Default
+        int maxConnections = 500;
+        @Builder.Default
+        int pendingAcquireMaxCount = 1000;
+        @Builder.Default
+        Duration pendingAcquireTimeout = Duration.ofSeconds(5);
+        @Builder.Default
+        Duration maxIdleTime = Duration.ofSeconds(30);
+        @Builder.Default
+        Duration maxLifeTime = Duration.ofMinutes(5);
+        @Builder.Default
+        Duration evictionInterval = Duration.ofSeconds(30);
+        @Builder.Default
+        Duration responseTimeout = Duration.ofSeconds(10);
+        @Builder.Default
+        boolean compress = true;
+        @Builder.Default
+        boolean http2 = false;
+    }
+
+    @Value
+    public static class PoolStats {
+        String remoteAddress;
+        int active;
+        int idle;
+        int pending;
+        int maxConnections;
+    }
+}
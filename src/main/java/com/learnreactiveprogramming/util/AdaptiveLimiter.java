@@ -0,0 +1,148 @@
+package com.learnreactiveprogramming.util;
+
+import lombok.Builder;
+import lombok.Value;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.publisher.SignalType;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * AIMD limit on the calls in flight, sized from their observed latency rather than a fixed concurrency.
+ * The limit grows by one per window of calls answering close to the no-load latency, and is cut by backoffRatio
+ * (at most once per round trip) when a call comes back more than tolerance times slower, or fails.
+ * Calls over the limit wait for a permit without being subscribed, so the demand sent upstream follows what the
+ * consumer really handles.
+ */
+public class AdaptiveLimiter {
+
+    private final Settings settings;
+
+    // guarded by this
+    private final Deque<Waiter> waiters = new ArrayDeque<>();
+    private double limit;
+    private int inFlight;
+    private long baselineNanos = Long.MAX_VALUE;
+    private long lastDecrease = Long.MIN_VALUE;
+
+    public AdaptiveLimiter(Settings settings) {
+        this.settings = settings;
+        this.limit = settings.getInitialLimit();
+    }
+
+    /**
+     * Subscribes the call once a permit is available, the permit is released when the call terminates or is
+     * cancelled.
+     */
+    public <R> Flux<R> run(Supplier<? extends Publisher<R>> call) {
+        return Flux.defer(() -> {
+            var waiter = new Waiter();
+            return Mono.<Void>create(sink -> acquire(waiter, sink))
+                    .thenMany(Flux.defer(() -> {
+                        waiter.start = System.nanoTime();
+                        return call.get();
+                    }))
+                    .doFinally(signalType -> release(waiter, signalType));
+        });
+    }
+
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    public synchronized int getWaiting() {
+        return waiters.size();
+    }
+
+    public int getMaxLimit() {
+        return settings.getMaxLimit();
+    }
+
+    private void acquire(Waiter waiter, MonoSink<Void> sink) {
+        synchronized (this) {
+            waiter.sink = sink;
+            if (inFlight >= (int) limit) {
+                waiters.add(waiter);
+                return;
+            }
+            inFlight++;
+            waiter.granted = true;
+        }
+        sink.success();
+    }
+
+    private void release(Waiter waiter, SignalType signalType) {
+        List<Waiter> granted;
+        synchronized (this) {
+            if (!waiter.granted) {
+                // cancelled while waiting for a permit
+                waiters.remove(waiter);
+                return;
+            }
+            inFlight--;
+            if (signalType == SignalType.ON_COMPLETE) {
+                onLatency(waiter.start, System.nanoTime() - waiter.start);
+            } else if (signalType == SignalType.ON_ERROR) {
+                decrease(waiter.start);
+            }
+            granted = new ArrayList<>();
+            while (inFlight < (int) limit && !waiters.isEmpty()) {
+                var next = waiters.poll();
+                inFlight++;
+                next.granted = true;
+                granted.add(next);
+            }
+        }
+        granted.forEach(next -> next.sink.success());
+    }
+
+    private void onLatency(long start, long latencyNanos) {
+        baselineNanos = Math.min(baselineNanos, latencyNanos);
+        if (latencyNanos > baselineNanos * settings.getTolerance()) {
+            decrease(start);
+        } else {
+            limit = Math.min(settings.getMaxLimit(), limit + 1 / limit);
+        }
+    }
+
+    // calls started before the last decrease already saw the old limit, they don't cut it again
+    private void decrease(long start) {
+        if (start >= lastDecrease) {
+            limit = Math.max(settings.getMinLimit(), limit * settings.getBackoffRatio());
+            lastDecrease = System.nanoTime();
+        }
+    }
+
+    private static class Waiter {
+        MonoSink<Void> sink;
+        boolean granted;
+        long start;
+    }
+
+    @Value
+    @Builder
+    public static class Settings {
+        @Builder.Default
+        int initialLimit = 4;
+        @Builder.Default
+        int minLimit = 1;
+        @Builder.Default
+        int maxLimit = 64;
+        // latency above baseline * tolerance counts as congestion
+        @Builder.Default
+        double tolerance = 1.5;
+        @Builder.Default
+        double backoffRatio = 0.9;
+    }
+}
@@ -0,0 +1,49 @@
+package com.learnreactiveprogramming.util;
+
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Schedulers for the blocking bridges (CompletableFuture, Mono.fromCallable ...).
+ * Uses a virtual thread per task executor when the running JDK has one, boundedElastic otherwise.
+ */
+public final class BlockingSchedulers {
+
+    private static final Optional<ExecutorService> VIRTUAL_THREAD_EXECUTOR = virtualThreadExecutor();
+    private static final Scheduler DEFAULT = VIRTUAL_THREAD_EXECUTOR
+            .map(executorService -> Schedulers.fromExecutorService(executorService, "virtual"))
+            .orElseGet(Schedulers::boundedElastic);
+
+    private BlockingSchedulers() {
+    }
+
+    public static Scheduler defaultScheduler() {
+        return DEFAULT;
+    }
+
+    public static boolean virtualThreadsAvailable() {
+        return VIRTUAL_THREAD_EXECUTOR.isPresent();
+    }
+
+    /**
+     * Adapts a scheduler to the Executor expected by CompletableFuture.supplyAsync.
+     */
+    public static Executor asExecutor(Scheduler scheduler) {
+        return task -> scheduler.schedule(task);
+    }
+
+    // looked up reflectively so the project still compiles for (and runs on) JDKs without virtual threads
+    private static Optional<ExecutorService> virtualThreadExecutor() {
+        try {
+            var factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return Optional.of((ExecutorService) factory.invoke(null));
+        } catch (ReflectiveOperationException | UnsupportedOperationException ex) {
+            return Optional.empty();
+        }
+    }
+}
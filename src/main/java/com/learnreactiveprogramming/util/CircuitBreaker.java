@@ -0,0 +1,221 @@
+package com.learnreactiveprogramming.util;
+
+import lombok.Builder;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Reactive circuit breaker over a count based sliding window of the last calls.
+ * <ul>
+ *     <li>CLOSED : calls go through, the breaker opens once the failure rate or the slow call rate crosses its
+ *     threshold.</li>
+ *     <li>OPEN : calls are short-circuited to the fallback without being subscribed, until waitInOpenState elapses.</li>
+ *     <li>HALF_OPEN : a few trial calls go through, the breaker closes if they all succeed in time and opens again
+ *     otherwise.</li>
+ * </ul>
+ */
+@Slf4j
+public class CircuitBreaker {
+
+    public enum State {CLOSED, OPEN, HALF_OPEN}
+
+    private static final byte FAILED = 1;
+    private static final byte SLOW = 2;
+
+    private final String name;
+    private final Settings settings;
+    private final Sinks.Many<State> stateChanges = Sinks.many().replay().latest();
+    private final LongAdder shortCircuited = new LongAdder();
+
+    // guarded by this
+    private final byte[] window;
+    private int windowIndex;
+    private int windowCount;
+    private int windowFailures;
+    private int windowSlowCalls;
+    private State state = State.CLOSED;
+    private long openedAt;
+    private int halfOpenPermits;
+    private int halfOpenSuccesses;
+
+    public CircuitBreaker(String name, Settings settings) {
+        this.name = name;
+        this.settings = settings;
+        this.window = new byte[settings.getWindowSize()];
+        stateChanges.tryEmitNext(State.CLOSED);
+    }
+
+    public <T> Mono<T> protectMono(Mono<T> call, Supplier<Mono<T>> fallback) {
+        return Mono.defer(() -> {
+            if (!tryAcquirePermission()) {
+                shortCircuited.increment();
+                return fallback.get();
+            }
+            var start = System.nanoTime();
+            var recorded = new AtomicBoolean();
+            return call
+                    .doOnSuccess(value -> record(recorded, start, false))
+                    .doOnError(ex -> record(recorded, start, true))
+                    .doOnCancel(() -> release(recorded));
+        });
+    }
+
+    public <T> Flux<T> protectFlux(Flux<T> call, Supplier<Flux<T>> fallback) {
+        return Flux.defer(() -> {
+            if (!tryAcquirePermission()) {
+                shortCircuited.increment();
+                return fallback.get();
+            }
+            var start = System.nanoTime();
+            var recorded = new AtomicBoolean();
+            return call
+                    .doOnComplete(() -> record(recorded, start, false))
+                    .doOnError(ex -> record(recorded, start, true))
+                    .doOnCancel(() -> release(recorded));
+        });
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * Current state first, then every transition.
+     */
+    public Flux<State> stateChanges() {
+        return stateChanges.asFlux();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getShortCircuitedCalls() {
+        return shortCircuited.sum();
+    }
+
+    private void record(AtomicBoolean recorded, long start, boolean failed) {
+        if (recorded.compareAndSet(false, true)) {
+            var slow = System.nanoTime() - start > settings.getSlowCallThreshold().toNanos();
+            onResult(failed, slow);
+        }
+    }
+
+    private void release(AtomicBoolean recorded) {
+        if (recorded.compareAndSet(false, true)) {
+            synchronized (this) {
+                if (state == State.HALF_OPEN) {
+                    halfOpenPermits++;
+                }
+            }
+        }
+    }
+
+    private synchronized boolean tryAcquirePermission() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (System.nanoTime() - openedAt < settings.getWaitInOpenState().toNanos()) {
+                    return false;
+                }
+                transitionTo(State.HALF_OPEN);
+                halfOpenPermits = settings.getPermittedCallsInHalfOpenState();
+                halfOpenSuccesses = 0;
+                // fall through to take the first trial permit
+            default:
+                if (halfOpenPermits > 0) {
+                    halfOpenPermits--;
+                    return true;
+                }
+                return false;
+        }
+    }
+
+    private synchronized void onResult(boolean failed, boolean slow) {
+        switch (state) {
+            case CLOSED:
+                addToWindow(failed, slow);
+                if (windowCount >= settings.getMinimumCalls()
+                        && (windowFailures * 100 >= settings.getFailureRateThreshold() * windowCount
+                        || windowSlowCalls * 100 >= settings.getSlowCallRateThreshold() * windowCount)) {
+                    open();
+                }
+                break;
+            case HALF_OPEN:
+                if (failed || slow) {
+                    open();
+                } else if (++halfOpenSuccesses >= settings.getPermittedCallsInHalfOpenState()) {
+                    resetWindow();
+                    transitionTo(State.CLOSED);
+                }
+                break;
+            default:
+                // result of a call started before the breaker opened
+                break;
+        }
+    }
+
+    private void addToWindow(boolean failed, boolean slow) {
+        if (windowCount == window.length) {
+            var evicted = window[windowIndex];
+            windowFailures -= evicted & FAILED;
+            windowSlowCalls -= (evicted & SLOW) >> 1;
+        } else {
+            windowCount++;
+        }
+        var outcome = (byte) ((failed ? FAILED : 0) | (slow ? SLOW : 0));
+        window[windowIndex] = outcome;
+        windowFailures += outcome & FAILED;
+        windowSlowCalls += (outcome & SLOW) >> 1;
+        windowIndex = (windowIndex + 1) % window.length;
+    }
+
+    private void resetWindow() {
+        windowIndex = 0;
+        windowCount = 0;
+        windowFailures = 0;
+        windowSlowCalls = 0;
+    }
+
+    private void open() {
+        openedAt = System.nanoTime();
+        transitionTo(State.OPEN);
+    }
+
+    private void transitionTo(State newState) {
+        if (state != newState) {
+            log.warn("Circuit breaker {} : {} -> {}", name, state, newState);
+            state = newState;
+            stateChanges.tryEmitNext(newState);
+        }
+    }
+
+    @Value
+    @Builder
+    public static class Settings {
+        @Builder.Default
+        int windowSize = 100;
+        @Builder.Default
+        int minimumCalls = 20;
+        // percentages
+        @Builder.Default
+        int failureRateThreshold = 50;
+        @Builder.Default
+        int slowCallRateThreshold = 80;
+        @Builder.Default
+        Duration slowCallThreshold = Duration.ofSeconds(2);
+        @Builder.Default
+        Duration waitInOpenState = Duration.ofSeconds(30);
+        @Builder.Default
+        int permittedCallsInHalfOpenState = 5;
+    }
+}
@@ -0,0 +1,134 @@
+package com.learnreactiveprogramming.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Scheduled executor forwarding to a delegate, every task submitted goes through one of the decorate methods first.
+ * Base of the executor service decorators installed with Schedulers.setExecutorServiceDecorator(..).
+ */
+abstract class DecoratingExecutor implements ScheduledExecutorService {
+
+    private final ScheduledExecutorService delegate;
+
+    DecoratingExecutor(ScheduledExecutorService delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * A task run once, delayNanos after its submission (0 when not delayed).
+     */
+    abstract Runnable decorate(Runnable task, long delayNanos);
+
+    abstract <T> Callable<T> decorate(Callable<T> task, long delayNanos);
+
+    /**
+     * A task run every periodNanos, fixedRate tells scheduleAtFixedRate from scheduleWithFixedDelay.
+     */
+    abstract Runnable decoratePeriodic(Runnable task, long initialDelayNanos, long periodNanos, boolean fixedRate);
+
+    @Override
+    public void execute(Runnable command) {
+        delegate.execute(decorate(command, 0));
+    }
+
+    @Override
+    public Future<?> submit(Runnable task) {
+        return delegate.submit(decorate(task, 0));
+    }
+
+    @Override
+    public <T> Future<T> submit(Runnable task, T result) {
+        return delegate.submit(decorate(task, 0), result);
+    }
+
+    @Override
+    public <T> Future<T> submit(Callable<T> task) {
+        return delegate.submit(decorate(task, 0));
+    }
+
+    @Override
+    public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+        return delegate.schedule(decorate(command, unit.toNanos(delay)), delay, unit);
+    }
+
+    @Override
+    public <V> ScheduledFuture<V> schedule(Callable<V> callable, long delay, TimeUnit unit) {
+        return delegate.schedule(decorate(callable, unit.toNanos(delay)), delay, unit);
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleAtFixedRate(Runnable command, long initialDelay, long period, TimeUnit unit) {
+        return delegate.scheduleAtFixedRate(
+                decoratePeriodic(command, unit.toNanos(initialDelay), unit.toNanos(period), true),
+                initialDelay, period, unit);
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command, long initialDelay, long delay, TimeUnit unit) {
+        return delegate.scheduleWithFixedDelay(
+                decoratePeriodic(command, unit.toNanos(initialDelay), unit.toNanos(delay), false),
+                initialDelay, delay, unit);
+    }
+
+    @Override
+    public <T> List<Future<T>> invokeAll(Collection<? extends Callable<T>> tasks) throws InterruptedException {
+        return delegate.invokeAll(decorate(tasks));
+    }
+
+    @Override
+    public <T> List<Future<T>> invokeAll(Collection<? extends Callable<T>> tasks, long timeout, TimeUnit unit)
+            throws InterruptedException {
+        return delegate.invokeAll(decorate(tasks), timeout, unit);
+    }
+
+    @Override
+    public <T> T invokeAny(Collection<? extends Callable<T>> tasks) throws InterruptedException, ExecutionException {
+        return delegate.invokeAny(decorate(tasks));
+    }
+
+    @Override
+    public <T> T invokeAny(Collection<? extends Callable<T>> tasks, long timeout, TimeUnit unit)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        return delegate.invokeAny(decorate(tasks), timeout, unit);
+    }
+
+    @Override
+    public void shutdown() {
+        delegate.shutdown();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        return delegate.shutdownNow();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return delegate.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return delegate.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return delegate.awaitTermination(timeout, unit);
+    }
+
+    private <T> List<Callable<T>> decorate(Collection<? extends Callable<T>> tasks) {
+        var decorated = new ArrayList<Callable<T>>(tasks.size());
+        tasks.forEach(task -> decorated.add(decorate(task, 0)));
+        return decorated;
+    }
+}
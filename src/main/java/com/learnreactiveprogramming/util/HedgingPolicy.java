@@ -0,0 +1,131 @@
+package com.learnreactiveprogramming.util;
+
+import lombok.Builder;
+import lombok.Value;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Hedged requests : when the call hasn't answered within the observed latency percentile (p95 by default) a second,
+ * identical call is fired. The first one to answer wins and the other one is cancelled, a primary failing while the
+ * hedge is in flight waits for the hedge's answer.
+ * The share of hedged calls is capped so the extra load on the backend stays bounded.
+ */
+public class HedgingPolicy {
+
+    private static final HedgingPolicy DISABLED = new HedgingPolicy(null);
+    private static final int SAMPLES = 1024;
+    private static final int RECOMPUTE_EVERY = 128;
+
+    private final Settings settings;
+    private final AtomicLongArray latencies = new AtomicLongArray(SAMPLES);
+    private final AtomicLong recorded = new AtomicLong();
+    private final LongAdder calls = new LongAdder();
+    private final AtomicLong hedged = new AtomicLong();
+    private volatile long hedgeDelayNanos;
+
+    public HedgingPolicy(Settings settings) {
+        this.settings = settings;
+        this.hedgeDelayNanos = settings == null ? 0 : settings.getInitialDelay().toNanos();
+    }
+
+    public static HedgingPolicy disabled() {
+        return DISABLED;
+    }
+
+    public <T> Mono<T> hedge(Supplier<Mono<T>> call) {
+        if (settings == null) {
+            return Mono.defer(call);
+        }
+        return Mono.defer(() -> {
+            calls.increment();
+            var start = System.nanoTime();
+            var backupFired = new AtomicBoolean();
+            var failures = new AtomicInteger();
+
+            // timed until it terminates or loses : a primary cancelled by the hedge still took at least that long,
+            // so the slow calls stay in the window and the percentile doesn't drift down
+            var primary = call.get()
+                    .onErrorResume(ex -> backupFired.get() && failures.incrementAndGet() < 2 ? Mono.never() : Mono.error(ex))
+                    .doFinally(signalType -> recordLatency(System.nanoTime() - start));
+
+            // a capped hedge never signals, a failed one only when the primary failed as well
+            var backup = Mono.delay(Duration.ofNanos(hedgeDelayNanos))
+                    .flatMap(tick -> {
+                        if (!tryHedge()) {
+                            return Mono.<T>never();
+                        }
+                        backupFired.set(true);
+                        var backupStart = System.nanoTime();
+                        return call.get()
+                                .doOnSuccess(value -> recordLatency(System.nanoTime() - backupStart));
+                    })
+                    .onErrorResume(ex -> failures.incrementAndGet() < 2 ? Mono.never() : Mono.error(ex));
+
+            return Mono.firstWithSignal(primary, backup);
+        });
+    }
+
+    public Duration currentHedgeDelay() {
+        return Duration.ofNanos(hedgeDelayNanos);
+    }
+
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    public long getHedgedCalls() {
+        return hedged.get();
+    }
+
+    private boolean tryHedge() {
+        while (true) {
+            var current = hedged.get();
+            if (current + 1 > settings.getMaxHedgeRatio() * calls.sum()) {
+                return false;
+            }
+            if (hedged.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private void recordLatency(long nanos) {
+        var count = recorded.incrementAndGet();
+        latencies.set((int) ((count - 1) % SAMPLES), nanos);
+        if (count >= settings.getMinSamples() && count % RECOMPUTE_EVERY == 0) {
+            var size = (int) Math.min(count, SAMPLES);
+            var sorted = new long[size];
+            for (int i = 0; i < size; i++) {
+                sorted[i] = latencies.get(i);
+            }
+            Arrays.sort(sorted);
+            var percentile = sorted[(int) Math.min(size - 1, Math.ceil(settings.getPercentile() * size) - 1)];
+            hedgeDelayNanos = Math.max(settings.getMinDelay().toNanos(), percentile);
+        }
+    }
+
+    @Value
+    @Builder
+    public static class Settings {
+        // used until enough latencies are recorded
+        @Builder.Default
+        Duration initialDelay = Duration.ofMillis(200);
+        @Builder.Default
+        Duration minDelay = Duration.ofMillis(10);
+        @Builder.Default
+        double percentile = 0.95;
+        @Builder.Default
+        double maxHedgeRatio = 0.05;
+        @Builder.Default
+        int minSamples = RECOMPUTE_EVERY;
+    }
+}
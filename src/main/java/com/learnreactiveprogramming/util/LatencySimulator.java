@@ -0,0 +1,67 @@
+package com.learnreactiveprogramming.util;
+
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Non blocking stand-in for {@link CommonUtil#delay(int)} in the simulated services.
+ * The latency is waited on the timer, so no thread is parked, and each call draws a new delay from the configured
+ * distribution.
+ */
+public class LatencySimulator {
+
+    // z-score of the 99th percentile of a standard normal distribution
+    private static final double Z_99 = 2.3263;
+
+    private final LongSupplier delayNanos;
+
+    private LatencySimulator(LongSupplier delayNanos) {
+        this.delayNanos = delayNanos;
+    }
+
+    public static LatencySimulator none() {
+        return new LatencySimulator(() -> 0L);
+    }
+
+    public static LatencySimulator fixed(Duration delay) {
+        var nanos = delay.toNanos();
+        return new LatencySimulator(() -> nanos);
+    }
+
+    public static LatencySimulator uniform(Duration min, Duration max) {
+        var minNanos = min.toNanos();
+        var maxNanos = max.toNanos();
+        if (maxNanos < minNanos) {
+            throw new IllegalArgumentException("max must not be lower than min");
+        }
+        return new LatencySimulator(() -> ThreadLocalRandom.current().nextLong(minNanos, maxNanos + 1));
+    }
+
+    /**
+     * Log-normal latency fitted to the given median and 99th percentile, which models a long tail.
+     */
+    public static LatencySimulator logNormal(Duration p50, Duration p99) {
+        if (p99.compareTo(p50) < 0 || p50.isZero() || p50.isNegative()) {
+            throw new IllegalArgumentException("0 < p50 <= p99 required");
+        }
+        var mu = Math.log(p50.toNanos());
+        var sigma = (Math.log(p99.toNanos()) - mu) / Z_99;
+        return new LatencySimulator(() -> (long) Math.exp(mu + sigma * ThreadLocalRandom.current().nextGaussian()));
+    }
+
+    public Duration nextDelay() {
+        return Duration.ofNanos(delayNanos.getAsLong());
+    }
+
+    /**
+     * Emits the value of the supplier once the simulated latency has elapsed.
+     */
+    public <T> Mono<T> supply(Supplier<T> supplier) {
+        return Mono.defer(() -> Mono.delay(nextDelay())
+                .then(Mono.fromSupplier(supplier)));
+    }
+}
@@ -0,0 +1,249 @@
+package com.learnreactiveprogramming.util;
+
+import lombok.Value;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * In-process cache of {@link Mono} lookups with a time to live and an optional size bound (least recently used
+ * entries are evicted first).
+ * Concurrent lookups of the same key share a single upstream call, failed lookups are not cached.
+ * <p>
+ * Lookups only touch a ConcurrentHashMap. The LRU order lives in a separate structure behind a lock : hits are
+ * recorded in a lock free buffer and replayed into it on the next insert (or once enough of them piled up), so the
+ * order is approximate under heavy load but a hit never waits. Inserts go into the map and the LRU order under that
+ * same lock, so a failed load removing its entry always finds it in both. Loaders are applied lazily on subscription,
+ * outside of any lock.
+ * <p>
+ * Without a size bound expired entries are only replaced when their key is looked up again, so lookups also sweep
+ * the whole map for expired entries, at most once per time to live.
+ * <p>
+ * Cached values are handed out as is to every caller, they should be immutable or copied by the caller.
+ */
+public class ReactiveCache<K, V> {
+
+    private static final int ACCESS_BUFFER_SIZE = 1024;
+    private static final int ACCESS_DRAIN_THRESHOLD = 64;
+
+    private final long ttlNanos;
+    private final int maximumSize;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    private final Map<K, CacheEntry<V>> entries = new ConcurrentHashMap<>();
+
+    // hits waiting to be replayed into order, extra hits are dropped once the buffer is full
+    private final Queue<K> accesses = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingAccesses = new AtomicInteger();
+
+    // access ordered, guarded by evictionLock
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final LinkedHashMap<K, CacheEntry<V>> order = new LinkedHashMap<>(16, 0.75f, true);
+
+    // unbounded caches only, next time a lookup sweeps expired entries
+    private final AtomicLong nextPurge;
+
+    public ReactiveCache(Duration ttl) {
+        this(ttl, Integer.MAX_VALUE);
+    }
+
+    public ReactiveCache(Duration ttl, int maximumSize) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("maximumSize > 0 required but it was " + maximumSize);
+        }
+        this.ttlNanos = ttl.toNanos();
+        this.maximumSize = maximumSize;
+        this.nextPurge = new AtomicLong(System.nanoTime() + ttlNanos);
+    }
+
+    public Mono<V> get(K key, Function<? super K, ? extends Mono<V>> loader) {
+        return Mono.defer(() -> lookup(key, loader));
+    }
+
+    public void invalidate(K key) {
+        entries.remove(key);
+        evictionLock.lock();
+        try {
+            order.remove(key);
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    public void invalidateAll() {
+        entries.clear();
+        evictionLock.lock();
+        try {
+            order.clear();
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public Stats stats() {
+        return new Stats(hits.sum(), misses.sum(), coalesced.sum(), evictions.sum(), size());
+    }
+
+    private Mono<V> lookup(K key, Function<? super K, ? extends Mono<V>> loader) {
+        var now = System.nanoTime();
+        purgeExpired(now);
+        CacheEntry<V> created = null;
+        while (true) {
+            var existing = entries.get(key);
+            if (existing != null && !existing.isExpired(now)) {
+                if (existing.loaded) {
+                    hits.increment();
+                } else {
+                    coalesced.increment();
+                }
+                recordAccess(key);
+                return existing.value;
+            }
+            if (created == null) {
+                created = newEntry(key, loader, now);
+            }
+            if (insert(key, existing, created)) {
+                misses.increment();
+                return created.value;
+            }
+            // lost the race against another lookup, its entry is used instead
+        }
+    }
+
+    private CacheEntry<V> newEntry(K key, Function<? super K, ? extends Mono<V>> loader, long now) {
+        var entry = new CacheEntry<V>(now + ttlNanos);
+        entry.value = Mono.defer(() -> loader.apply(key))
+                .doOnSuccess(value -> entry.loaded = true)
+                .doOnError(ex -> remove(key, entry))
+                .cache();
+        return entry;
+    }
+
+    private void recordAccess(K key) {
+        if (maximumSize == Integer.MAX_VALUE) {
+            return;
+        }
+        var pending = pendingAccesses.incrementAndGet();
+        if (pending > ACCESS_BUFFER_SIZE) {
+            pendingAccesses.decrementAndGet();
+        } else {
+            accesses.offer(key);
+        }
+        if (pending >= ACCESS_DRAIN_THRESHOLD && evictionLock.tryLock()) {
+            try {
+                drainAccesses();
+            } finally {
+                evictionLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Publishes the entry in place of existing (absent when null). On a bounded cache the LRU order is updated under
+     * the same lock, before any other lookup can subscribe to the entry and fail it.
+     */
+    private boolean insert(K key, CacheEntry<V> existing, CacheEntry<V> created) {
+        if (maximumSize == Integer.MAX_VALUE) {
+            return putOrReplace(key, existing, created);
+        }
+        evictionLock.lock();
+        try {
+            if (!putOrReplace(key, existing, created)) {
+                return false;
+            }
+            drainAccesses();
+            order.put(key, created);
+            var eldest = order.entrySet().iterator();
+            while (order.size() > maximumSize) {
+                var evicted = eldest.next();
+                eldest.remove();
+                entries.remove(evicted.getKey(), evicted.getValue());
+                evictions.increment();
+            }
+            return true;
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private boolean putOrReplace(K key, CacheEntry<V> existing, CacheEntry<V> created) {
+        return existing == null
+                ? entries.putIfAbsent(key, created) == null
+                : entries.replace(key, existing, created);
+    }
+
+    private void purgeExpired(long now) {
+        if (maximumSize != Integer.MAX_VALUE) {
+            return;
+        }
+        var next = nextPurge.get();
+        if (now - next >= 0 && nextPurge.compareAndSet(next, now + ttlNanos)) {
+            entries.values().removeIf(entry -> entry.isExpired(now));
+        }
+    }
+
+    // error path, bounded caches drop the entry from both structures at once so a concurrent insert never sees half
+    private void remove(K key, CacheEntry<V> entry) {
+        if (maximumSize == Integer.MAX_VALUE) {
+            entries.remove(key, entry);
+            return;
+        }
+        evictionLock.lock();
+        try {
+            entries.remove(key, entry);
+            order.remove(key, entry);
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    // guarded by evictionLock, a get on the access ordered map moves the key to the most recently used end
+    private void drainAccesses() {
+        K key;
+        while ((key = accesses.poll()) != null) {
+            pendingAccesses.decrementAndGet();
+            order.get(key);
+        }
+    }
+
+    private static class CacheEntry<V> {
+        private final long expiresAt;
+        private Mono<V> value;
+        private volatile boolean loaded;
+
+        CacheEntry(long expiresAt) {
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isExpired(long now) {
+            return now - expiresAt >= 0;
+        }
+    }
+
+    @Value
+    public static class Stats {
+        long hits;
+        long misses;
+        long coalesced;
+        long evictions;
+        int size;
+    }
+}
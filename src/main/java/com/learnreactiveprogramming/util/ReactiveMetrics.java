@@ -0,0 +1,143 @@
+package com.learnreactiveprogramming.util;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import reactor.core.observability.micrometer.Micrometer;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Opt-in Micrometer metrics for the service pipelines, through Reactor's name() and tap().
+ * For a sequence named {@code movieInfoService.retrieveAllMovieInfo_RestClient} the registry gets
+ * <ul>
+ *     <li>{@code .subscribed} : subscription count</li>
+ *     <li>{@code .flow.duration} : subscription to termination timer, tagged with the status and the exception
+ *     type</li>
+ *     <li>{@code .onNext.delay} : timer between onNext signals, its count is the onNext rate (Flux only)</li>
+ *     <li>{@code .requested} : distribution of the request(n) amounts (Flux only)</li>
+ * </ul>
+ * Timers publish percentile histograms.
+ */
+public class ReactiveMetrics {
+
+    private static final ReactiveMetrics DISABLED = new ReactiveMetrics(null);
+
+    private final MeterRegistry registry;
+
+    public ReactiveMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        if (registry != null) {
+            registry.config().meterFilter(new MeterFilter() {
+                @Override
+                public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+                    if (id.getType() != Meter.Type.TIMER) {
+                        return config;
+                    }
+                    return DistributionStatisticConfig.builder()
+                            .percentilesHistogram(true)
+                            .build()
+                            .merge(config);
+                }
+            });
+        }
+    }
+
+    public static ReactiveMetrics disabled() {
+        return DISABLED;
+    }
+
+    public static ReactiveMetrics inMemory() {
+        return new ReactiveMetrics(new SimpleMeterRegistry());
+    }
+
+    public static ReactiveMetrics prometheus() {
+        return new ReactiveMetrics(new PrometheusMeterRegistry(PrometheusConfig.DEFAULT));
+    }
+
+    public boolean isEnabled() {
+        return registry != null;
+    }
+
+    public MeterRegistry getRegistry() {
+        return registry;
+    }
+
+    /**
+     * For {@code flux.transform(metrics.flux(name))}, the identity when disabled.
+     */
+    public <T> Function<Flux<T>, Flux<T>> flux(String name) {
+        if (!isEnabled()) {
+            return Function.identity();
+        }
+        return source -> source.name(name)
+                .tap(Micrometer.metrics(registry));
+    }
+
+    public <T> Function<Mono<T>, Mono<T>> mono(String name) {
+        if (!isEnabled()) {
+            return Function.identity();
+        }
+        return source -> source.name(name)
+                .tap(Micrometer.metrics(registry));
+    }
+
+    /**
+     * Registers a gauge reading obj, nothing when disabled. obj is only weakly referenced by the registry.
+     */
+    public <T> void gauge(String name, T obj, ToDoubleFunction<T> value) {
+        if (isEnabled()) {
+            Gauge.builder(name, obj, value)
+                    .register(registry);
+        }
+    }
+
+    /**
+     * Reports the scheduler saturation to this registry, see {@link SchedulerMetrics} for the schedulers covered.
+     */
+    public SchedulerMetrics instrumentSchedulers() {
+        if (!isEnabled()) {
+            throw new IllegalStateException("Scheduler metrics need a registry, see ReactiveMetrics.inMemory() or prometheus()");
+        }
+        return SchedulerMetrics.install(registry);
+    }
+
+    /**
+     * Serves the registry in the Prometheus text format on http://localhost:port/metrics, stop the returned server
+     * when done.
+     */
+    public HttpServer startScrapeEndpoint(int port) {
+        if (!(registry instanceof PrometheusMeterRegistry)) {
+            throw new IllegalStateException("A PrometheusMeterRegistry is required to scrape, see ReactiveMetrics.prometheus()");
+        }
+        var prometheusRegistry = (PrometheusMeterRegistry) registry;
+        try {
+            var server = HttpServer.create(new InetSocketAddress("localhost", port), 0);
+            server.createContext("/metrics", exchange -> {
+                var body = prometheusRegistry.scrape().getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+                exchange.sendResponseHeaders(200, body.length);
+                try (var out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            });
+            server.start();
+            return server;
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.learnreactiveprogramming.util;
+
+import com.learnreactiveprogramming.exception.LappedException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Sinks;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.LongConsumer;
+
+/**
+ * Hot replay of the last capacity events over a fixed size, lock free ring.
+ * Producers claim a sequence, write the slot then publish the sequence in order. Every subscriber reads the ring
+ * through its own cursor at its own pace and is woken up by a multicast sink when new events are published.
+ * Nothing is buffered per subscriber : one that falls more than capacity events behind is lapped, it is then
+ * either notified and moved to the oldest retained event or failed with a {@link LappedException}.
+ */
+public class ReplayRing<T> {
+
+    private final int capacity;
+    private final int mask;
+    private final AtomicReferenceArray<Slot<T>> slots;
+    private final AtomicLong claimed = new AtomicLong();
+    private final AtomicLong published = new AtomicLong();
+    private final SerializedSink<Long> wakeUps = new SerializedSink<>(Sinks.many().multicast().directBestEffort());
+
+    private volatile boolean done;
+    private volatile Throwable error;
+
+    public ReplayRing(int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a power of two but it was " + capacity);
+        }
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.slots = new AtomicReferenceArray<>(capacity);
+    }
+
+    public void emitNext(T value) {
+        var sequence = claimed.getAndIncrement();
+        slots.set((int) (sequence & mask), new Slot<>(sequence, value));
+        // publish in claim order so readers never see a gap
+        while (!published.compareAndSet(sequence, sequence + 1)) {
+            Thread.onSpinWait();
+        }
+        wakeUp(sequence);
+    }
+
+    public void emitComplete() {
+        done = true;
+        wakeUp(-1L);
+    }
+
+    public void emitError(Throwable throwable) {
+        error = throwable;
+        done = true;
+        wakeUp(-1L);
+    }
+
+    /**
+     * Replays the retained events then follows the live ones, fails with a {@link LappedException} when lapped.
+     */
+    public Flux<T> asFlux() {
+        return asFlux(null);
+    }
+
+    /**
+     * Replays the retained events then follows the live ones, when lapped onLapped gets the number of missed
+     * events and the subscriber carries on from the oldest retained event.
+     */
+    public Flux<T> asFlux(LongConsumer onLapped) {
+        return Flux.create(sink -> {
+            var cursor = new Cursor(sink, Math.max(0, published.get() - capacity), onLapped);
+            var wakeUpSubscription = wakeUps.asFlux().subscribe(sequence -> cursor.drain());
+            sink.onRequest(n -> cursor.drain());
+            sink.onDispose(wakeUpSubscription);
+            // catches up on what was published before the wake up subscription
+            cursor.drain();
+        });
+    }
+
+    public long getPublished() {
+        return published.get();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    private void wakeUp(long sequence) {
+        wakeUps.emitNext(sequence);
+    }
+
+    private static class Slot<T> {
+        final long sequence;
+        final T value;
+
+        Slot(long sequence, T value) {
+            this.sequence = sequence;
+            this.value = value;
+        }
+    }
+
+    private class Cursor {
+
+        private final FluxSink<T> sink;
+        private final LongConsumer onLapped;
+        private final AtomicInteger wip = new AtomicInteger();
+        private long next;
+
+        Cursor(FluxSink<T> sink, long next, LongConsumer onLapped) {
+            this.sink = sink;
+            this.next = next;
+            this.onLapped = onLapped;
+        }
+
+        void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            var missed = 1;
+            do {
+                while (sink.requestedFromDownstream() > 0 && !sink.isCancelled() && next < published.get()) {
+                    var slot = slots.get((int) (next & mask));
+                    if (slot.sequence != next) {
+                        // overwritten by a producer one or more laps ahead
+                        var oldest = Math.max(next + 1, published.get() - capacity);
+                        if (onLapped == null) {
+                            sink.error(new LappedException(oldest - next));
+                            return;
+                        }
+                        onLapped.accept(oldest - next);
+                        next = oldest;
+                        continue;
+                    }
+                    sink.next(slot.value);
+                    next++;
+                }
+                if (done && next >= published.get() && !sink.isCancelled()) {
+                    if (error != null) {
+                        sink.error(error);
+                    } else {
+                        sink.complete();
+                    }
+                    return;
+                }
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.learnreactiveprogramming.util;
+
+/**
+ * Token bucket shared by every subscriber of a retry policy : each retry takes a token and the bucket refills at a
+ * fixed rate, so a flapping backend can only be retried so much in total.
+ */
+public class RetryBudget {
+
+    private final double capacity;
+    private final double refillPerNano;
+
+    private double tokens;
+    private long lastRefill;
+
+    public RetryBudget(int capacity, double refillPerSecond) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity > 0 required but it was " + capacity);
+        }
+        this.capacity = capacity;
+        this.refillPerNano = refillPerSecond / 1_000_000_000d;
+        this.tokens = capacity;
+        this.lastRefill = System.nanoTime();
+    }
+
+    public static RetryBudget unlimited() {
+        return new RetryBudget(Integer.MAX_VALUE, Integer.MAX_VALUE);
+    }
+
+    public synchronized boolean tryAcquire() {
+        refill();
+        if (tokens >= 1) {
+            tokens--;
+            return true;
+        }
+        return false;
+    }
+
+    public synchronized double available() {
+        refill();
+        return tokens;
+    }
+
+    private void refill() {
+        var now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefill) * refillPerNano);
+        lastRefill = now;
+    }
+}
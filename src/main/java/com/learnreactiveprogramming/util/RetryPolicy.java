@@ -0,0 +1,112 @@
+package com.learnreactiveprogramming.util;
+
+import lombok.Builder;
+import lombok.Value;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * Exponential backoff with full jitter, capped by a maximum total delay per subscription and by a
+ * {@link RetryBudget} shared by all the subscribers. Once a limit is hit the original failure is propagated
+ * right away instead of being retried.
+ */
+public class RetryPolicy extends Retry {
+
+    private final Settings settings;
+    private final RetryBudget budget;
+
+    private final LongAdder attempted = new LongAdder();
+    private final LongAdder suppressed = new LongAdder();
+    private final LongAdder succeeded = new LongAdder();
+
+    public RetryPolicy(Settings settings, RetryBudget budget) {
+        this.settings = settings;
+        this.budget = budget;
+    }
+
+    /**
+     * {@code flux.transform(policy::retry)} : retryWhen(policy), and counts the subscriptions where the source
+     * emitted or completed after at least one retry. A plain retryWhen(policy) doesn't count successes.
+     */
+    public <T> Flux<T> retry(Flux<T> source) {
+        return Flux.defer(() -> {
+            var retried = new AtomicBoolean();
+            var succeededOnce = new AtomicBoolean();
+            return source
+                    .doOnEach(signal -> {
+                        if ((signal.isOnNext() || signal.isOnComplete()) && retried.get()
+                                && succeededOnce.compareAndSet(false, true)) {
+                            succeeded.increment();
+                        }
+                    })
+                    .retryWhen(Retry.from(retrySignals -> companion(retrySignals, retried)));
+        });
+    }
+
+    @Override
+    public Publisher<?> generateCompanion(Flux<RetrySignal> retrySignals) {
+        return Flux.defer(() -> companion(retrySignals, new AtomicBoolean()));
+    }
+
+    private Flux<Long> companion(Flux<RetrySignal> retrySignals, AtomicBoolean retried) {
+        var totalDelayNanos = new AtomicLong();
+        return retrySignals
+                .concatMap(retrySignal -> {
+                    var failure = retrySignal.failure();
+                    if (!settings.getRetryOn().test(failure) || retrySignal.totalRetries() >= settings.getMaxRetries()) {
+                        return Mono.<Long>error(failure);
+                    }
+                    var backoff = backoff(retrySignal.totalRetries());
+                    if (totalDelayNanos.addAndGet(backoff) > settings.getMaxTotalDelay().toNanos() || !budget.tryAcquire()) {
+                        suppressed.increment();
+                        return Mono.<Long>error(failure);
+                    }
+                    attempted.increment();
+                    retried.set(true);
+                    return Mono.delay(Duration.ofNanos(backoff));
+                });
+    }
+
+    public Metrics metrics() {
+        return new Metrics(attempted.sum(), suppressed.sum(), succeeded.sum());
+    }
+
+    // full jitter : uniform between 0 and min(maxBackoff, minBackoff * 2^attempt)
+    private long backoff(long attempt) {
+        var min = settings.getMinBackoff().toNanos();
+        var max = settings.getMaxBackoff().toNanos();
+        var cap = attempt >= 62 || min > (max >> attempt) ? max : min << attempt;
+        return ThreadLocalRandom.current().nextLong(cap + 1);
+    }
+
+    @Value
+    @Builder
+    public static class Settings {
+        @Builder.Default
+        long maxRetries = 3;
+        @Builder.Default
+        Duration minBackoff = Duration.ofMillis(500);
+        @Builder.Default
+        Duration maxBackoff = Duration.ofSeconds(5);
+        @Builder.Default
+        Duration maxTotalDelay = Duration.ofSeconds(10);
+        @Builder.Default
+        Predicate<Throwable> retryOn = ex -> true;
+    }
+
+    @Value
+    public static class Metrics {
+        long attempted;
+        long suppressed;
+        long succeeded;
+    }
+}
@@ -0,0 +1,221 @@
+package com.learnreactiveprogramming.util;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.Value;
+import reactor.core.Scannable;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToIntFunction;
+
+/**
+ * Saturation metrics for the Reactor schedulers, through an executor service decorator. Applies to the
+ * schedulers created after {@link #install(MeterRegistry)} : parallel(), boundedElastic() and any newParallel(..),
+ * newBoundedElastic(..) or newSingle(..). Cached schedulers already in use keep their executors until they are
+ * disposed (Schedulers.shutdownNow()).
+ * <p>
+ * Per scheduler, tagged {@code scheduler} with the scheduler name, the registry gets
+ * <ul>
+ *     <li>{@code reactor.scheduler.active} : workers running a task</li>
+ *     <li>{@code reactor.scheduler.queued} : tasks waiting for a worker, delayed ones included</li>
+ *     <li>{@code reactor.scheduler.wait} : timer from the moment a task could start to the moment it does</li>
+ *     <li>{@code reactor.scheduler.execution} : task execution timer</li>
+ * </ul>
+ * The meters are removed from the registry on {@link #uninstall()} or when another installation replaces this one.
+ */
+public class SchedulerMetrics {
+
+    private static final String DECORATOR_KEY = SchedulerMetrics.class.getName();
+
+    // guarded by the class lock
+    private static SchedulerMetrics installed;
+
+    private final MeterRegistry registry;
+    private final Map<String, SchedulerStats> stats = new ConcurrentHashMap<>();
+    private volatile boolean removed;
+
+    private SchedulerMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Decorates the executors of the schedulers created from now on, replaces any previous installation.
+     */
+    public static synchronized SchedulerMetrics install(MeterRegistry registry) {
+        uninstall();
+        var metrics = new SchedulerMetrics(registry);
+        Schedulers.setExecutorServiceDecorator(DECORATOR_KEY, metrics::decorate);
+        installed = metrics;
+        return metrics;
+    }
+
+    /**
+     * Stops decorating new schedulers and removes the meters of the current installation from its registry.
+     */
+    public static synchronized void uninstall() {
+        Schedulers.removeExecutorServiceDecorator(DECORATOR_KEY);
+        if (installed != null) {
+            installed.removeMeters();
+            installed = null;
+        }
+    }
+
+    /**
+     * Current saturation per scheduler, sorted by scheduler name.
+     */
+    public Map<String, Saturation> snapshot() {
+        var snapshot = new TreeMap<String, Saturation>();
+        stats.forEach((scheduler, schedulerStats) -> snapshot.put(scheduler, schedulerStats.snapshot()));
+        return snapshot;
+    }
+
+    // executors kept per scheduler, for the tests
+    Map<String, Integer> trackedExecutors() {
+        var tracked = new TreeMap<String, Integer>();
+        stats.forEach((scheduler, schedulerStats) -> tracked.put(scheduler, schedulerStats.executors.size()));
+        return tracked;
+    }
+
+    private void removeMeters() {
+        removed = true;
+        stats.values().forEach(SchedulerStats::removeMeters);
+    }
+
+    private ScheduledExecutorService decorate(Scheduler scheduler, ScheduledExecutorService executor) {
+        var name = Scannable.from(scheduler).scanOrDefault(Scannable.Attr.NAME, scheduler.getClass().getSimpleName());
+        var schedulerStats = stats.computeIfAbsent(name, SchedulerStats::new);
+        if (removed) {
+            // decorated while being uninstalled, the meters registered meanwhile must not outlive the installation
+            schedulerStats.removeMeters();
+        }
+        // Reactor builds its workers on ScheduledThreadPoolExecutor, the pool itself knows what is active or queued
+        if (executor instanceof ThreadPoolExecutor) {
+            // the gauges may never be read, a busy boundedElastic would otherwise keep every evicted worker
+            schedulerStats.prune();
+            schedulerStats.executors.add((ThreadPoolExecutor) executor);
+        }
+        return new InstrumentedExecutor(executor, schedulerStats);
+    }
+
+    @Value
+    public static class Saturation {
+        int active;
+        int queued;
+        long tasks;
+        Duration meanWait;
+        Duration maxWait;
+        Duration meanExecution;
+        Duration maxExecution;
+    }
+
+    // every executor of a scheduler (one per parallel worker, one per boundedElastic thread) feeds the same meters
+    private class SchedulerStats {
+        final List<ThreadPoolExecutor> executors = new CopyOnWriteArrayList<>();
+        final Gauge active;
+        final Gauge queued;
+        final Timer waitTime;
+        final Timer executionTime;
+
+        SchedulerStats(String scheduler) {
+            // the registry dedupes by id, meters left behind by anything else would keep reporting stale executors
+            List.of("reactor.scheduler.active", "reactor.scheduler.queued", "reactor.scheduler.wait",
+                    "reactor.scheduler.execution").forEach(name -> registry.find(name).tag("scheduler", scheduler)
+                    .meters().forEach(registry::remove));
+            active = Gauge.builder("reactor.scheduler.active", this,
+                            self -> self.sum(ThreadPoolExecutor::getActiveCount))
+                    .tag("scheduler", scheduler)
+                    .register(registry);
+            queued = Gauge.builder("reactor.scheduler.queued", this,
+                            self -> self.sum(executor -> executor.getQueue().size()))
+                    .tag("scheduler", scheduler)
+                    .register(registry);
+            waitTime = Timer.builder("reactor.scheduler.wait")
+                    .tag("scheduler", scheduler)
+                    .register(registry);
+            executionTime = Timer.builder("reactor.scheduler.execution")
+                    .tag("scheduler", scheduler)
+                    .register(registry);
+        }
+
+        void removeMeters() {
+            List.<Meter>of(active, queued, waitTime, executionTime).forEach(registry::remove);
+        }
+
+        int sum(ToIntFunction<ThreadPoolExecutor> metric) {
+            prune();
+            return executors.stream().mapToInt(metric).sum();
+        }
+
+        // evicted boundedElastic workers and disposed schedulers
+        void prune() {
+            executors.removeIf(ThreadPoolExecutor::isTerminated);
+        }
+
+        Saturation snapshot() {
+            return new Saturation(sum(ThreadPoolExecutor::getActiveCount), sum(executor -> executor.getQueue().size()),
+                    executionTime.count(),
+                    Duration.ofNanos((long) waitTime.mean(TimeUnit.NANOSECONDS)),
+                    Duration.ofNanos((long) waitTime.max(TimeUnit.NANOSECONDS)),
+                    Duration.ofNanos((long) executionTime.mean(TimeUnit.NANOSECONDS)),
+                    Duration.ofNanos((long) executionTime.max(TimeUnit.NANOSECONDS)));
+        }
+    }
+
+    private static class InstrumentedExecutor extends DecoratingExecutor {
+
+        private final SchedulerStats stats;
+
+        InstrumentedExecutor(ScheduledExecutorService delegate, SchedulerStats stats) {
+            super(delegate);
+            this.stats = stats;
+        }
+
+        // the wait starts once the requested delay, if any, has elapsed
+        @Override
+        Runnable decorate(Runnable task, long delayNanos) {
+            var ready = System.nanoTime() + delayNanos;
+            return () -> {
+                var start = System.nanoTime();
+                stats.waitTime.record(Math.max(0, start - ready), TimeUnit.NANOSECONDS);
+                try {
+                    task.run();
+                } finally {
+                    stats.executionTime.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                }
+            };
+        }
+
+        @Override
+        <T> Callable<T> decorate(Callable<T> task, long delayNanos) {
+            var ready = System.nanoTime() + delayNanos;
+            return () -> {
+                var start = System.nanoTime();
+                stats.waitTime.record(Math.max(0, start - ready), TimeUnit.NANOSECONDS);
+                try {
+                    return task.call();
+                } finally {
+                    stats.executionTime.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                }
+            };
+        }
+
+        // a periodic task is submitted once and runs many times, only its executions are timed
+        @Override
+        Runnable decoratePeriodic(Runnable task, long initialDelayNanos, long periodNanos, boolean fixedRate) {
+            return () -> stats.executionTime.record(task);
+        }
+    }
+}
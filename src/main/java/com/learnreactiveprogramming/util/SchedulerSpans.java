@@ -0,0 +1,101 @@
+package com.learnreactiveprogramming.util;
+
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * Queued vs executing time of the tasks run by each scheduler, filled by {@link TraceContext#installSchedulerHook()}.
+ * Schedulers are told apart by their thread name prefix : boundedElastic, parallel, parallel-scheduler ...
+ */
+@Slf4j
+public class SchedulerSpans {
+
+    private static final Pattern WORKER_SUFFIX = Pattern.compile("-\\d+$");
+
+    private final Consumer<Span> onSpan;
+    private final Map<String, Stats> stats = new ConcurrentHashMap<>();
+    // worker threads belong to a single scheduler, resolved on their first task
+    private final ThreadLocal<Stats> threadStats = new ThreadLocal<>();
+
+    SchedulerSpans(Consumer<Span> onSpan) {
+        this.onSpan = onSpan;
+    }
+
+    /**
+     * Totals per scheduler, sorted by scheduler name.
+     */
+    public Map<String, SchedulerStats> snapshot() {
+        var snapshot = new TreeMap<String, SchedulerStats>();
+        stats.forEach((scheduler, schedulerStats) -> snapshot.put(scheduler, schedulerStats.snapshot()));
+        return snapshot;
+    }
+
+    void record(String traceId, long queuedNanos, long executingNanos) {
+        var schedulerStats = threadStats.get();
+        if (schedulerStats == null) {
+            var name = WORKER_SUFFIX.matcher(Thread.currentThread().getName()).replaceFirst("");
+            schedulerStats = stats.computeIfAbsent(name, Stats::new);
+            threadStats.set(schedulerStats);
+        }
+        schedulerStats.record(queuedNanos, executingNanos);
+        if (traceId == null) {
+            return;
+        }
+        var scheduler = schedulerStats.scheduler;
+        // the MDC still holds the trace id here
+        log.debug("{} task queued {} us, executed {} us", scheduler, queuedNanos / 1000, executingNanos / 1000);
+        onSpan.accept(new Span(traceId, scheduler, Duration.ofNanos(queuedNanos), Duration.ofNanos(executingNanos)));
+    }
+
+    @Value
+    public static class Span {
+        String traceId;
+        String scheduler;
+        Duration queued;
+        Duration executing;
+    }
+
+    @Value
+    public static class SchedulerStats {
+        long tasks;
+        Duration queued;
+        Duration executing;
+        Duration maxQueued;
+        Duration maxExecuting;
+    }
+
+    private static class Stats {
+        final String scheduler;
+        final LongAdder tasks = new LongAdder();
+        final LongAdder queued = new LongAdder();
+        final LongAdder executing = new LongAdder();
+        final LongAccumulator maxQueued = new LongAccumulator(Math::max, 0);
+        final LongAccumulator maxExecuting = new LongAccumulator(Math::max, 0);
+
+        Stats(String scheduler) {
+            this.scheduler = scheduler;
+        }
+
+        void record(long queuedNanos, long executingNanos) {
+            tasks.increment();
+            queued.add(queuedNanos);
+            executing.add(executingNanos);
+            maxQueued.accumulate(queuedNanos);
+            maxExecuting.accumulate(executingNanos);
+        }
+
+        SchedulerStats snapshot() {
+            return new SchedulerStats(tasks.sum(), Duration.ofNanos(queued.sum()), Duration.ofNanos(executing.sum()),
+                    Duration.ofNanos(maxQueued.get()), Duration.ofNanos(maxExecuting.get()));
+        }
+    }
+}
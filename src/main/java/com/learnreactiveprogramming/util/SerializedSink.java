@@ -0,0 +1,105 @@
+package com.learnreactiveprogramming.util;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sinks.Many facade safe to emit from any number of threads : emissions go through a lock free MPSC queue and the
+ * thread that finds the sink idle drains it, so the delegate only ever sees one emitter at a time and never fails
+ * with FAIL_NON_SERIALIZED. Producers never block nor spin.
+ * <p>
+ * Contended counts the emissions handed over to the thread already draining, dropped the ones the delegate
+ * refused (no subscriber, overflow, already terminated).
+ */
+public class SerializedSink<T> {
+
+    private static final Object COMPLETE = new Object();
+
+    private final Sinks.Many<T> delegate;
+    private final Queue<Object> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger wip = new AtomicInteger();
+
+    private final LongAdder emitted = new LongAdder();
+    private final LongAdder contended = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    public SerializedSink(Sinks.Many<T> delegate) {
+        this.delegate = delegate;
+    }
+
+    public void emitNext(T value) {
+        queue.offer(value);
+        drain();
+    }
+
+    public void emitComplete() {
+        queue.offer(COMPLETE);
+        drain();
+    }
+
+    public void emitError(Throwable throwable) {
+        queue.offer(new ErrorSignal(throwable));
+        drain();
+    }
+
+    public Flux<T> asFlux() {
+        return delegate.asFlux();
+    }
+
+    public int currentSubscriberCount() {
+        return delegate.currentSubscriberCount();
+    }
+
+    public long getEmitted() {
+        return emitted.sum();
+    }
+
+    public long getContended() {
+        return contended.sum();
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void drain() {
+        if (wip.getAndIncrement() != 0) {
+            contended.increment();
+            return;
+        }
+        var missed = 1;
+        do {
+            Object signal;
+            while ((signal = queue.poll()) != null) {
+                Sinks.EmitResult result;
+                if (signal == COMPLETE) {
+                    result = delegate.tryEmitComplete();
+                } else if (signal instanceof ErrorSignal) {
+                    result = delegate.tryEmitError(((ErrorSignal) signal).error);
+                } else {
+                    result = delegate.tryEmitNext((T) signal);
+                }
+                if (result.isSuccess()) {
+                    emitted.increment();
+                } else {
+                    dropped.increment();
+                }
+            }
+            missed = wip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private static class ErrorSignal {
+        final Throwable error;
+
+        ErrorSignal(Throwable error) {
+            this.error = error;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.learnreactiveprogramming.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Signal;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Opt-in replacement for {@code .log()} on hot paths.
+ * Logs one onNext out of every {@code sampleRate}, any signal that took longer than {@code slowThreshold}
+ * since the previous one of the same subscription, and every error.
+ */
+public class SignalTracing {
+
+    private static final SignalTracing DISABLED = new SignalTracing(null, 0, Duration.ZERO);
+
+    private final Logger logger;
+    private final long sampleRate;
+    private final long slowThresholdNanos;
+    private final AtomicLong onNextCount = new AtomicLong();
+    private final LongAdder sampled = new LongAdder();
+    private final LongAdder slow = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+
+    private SignalTracing(String category, long sampleRate, Duration slowThreshold) {
+        this.logger = category == null ? null : LoggerFactory.getLogger(category);
+        this.sampleRate = sampleRate;
+        this.slowThresholdNanos = slowThreshold.toNanos();
+    }
+
+    public static SignalTracing disabled() {
+        return DISABLED;
+    }
+
+    public static SignalTracing sampled(String category, long sampleRate, Duration slowThreshold) {
+        if (sampleRate <= 0) {
+            throw new IllegalArgumentException("sampleRate > 0 required but it was " + sampleRate);
+        }
+        return new SignalTracing(category, sampleRate, slowThreshold);
+    }
+
+    public boolean isEnabled() {
+        return logger != null;
+    }
+
+    /**
+     * onNext signals logged as samples, slow ones excluded.
+     */
+    public long getSampled() {
+        return sampled.sum();
+    }
+
+    /**
+     * Signals logged because they took longer than slowThreshold.
+     */
+    public long getSlow() {
+        return slow.sum();
+    }
+
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    public <T> Flux<T> traceFlux(Flux<T> source) {
+        if (!isEnabled()) {
+            return source;
+        }
+        return Flux.defer(() -> {
+            var lastSignal = new AtomicLong(System.nanoTime());
+            return source.doOnEach(signal -> trace(signal, lastSignal));
+        });
+    }
+
+    public <T> Mono<T> traceMono(Mono<T> source) {
+        if (!isEnabled()) {
+            return source;
+        }
+        return Mono.defer(() -> {
+            var lastSignal = new AtomicLong(System.nanoTime());
+            return source.doOnEach(signal -> trace(signal, lastSignal));
+        });
+    }
+
+    private <T> void trace(Signal<T> signal, AtomicLong lastSignal) {
+        var now = System.nanoTime();
+        var elapsed = now - lastSignal.getAndSet(now);
+
+        if (signal.isOnError()) {
+            errors.increment();
+            logger.error("onError after {} ms", elapsed / 1_000_000, signal.getThrowable());
+        } else if (slowThresholdNanos > 0 && elapsed > slowThresholdNanos) {
+            slow.increment();
+            logger.warn("slow {}({}) after {} ms", signal.getType(), signal.get(), elapsed / 1_000_000);
+        } else if (signal.isOnNext() && onNextCount.incrementAndGet() % sampleRate == 0) {
+            sampled.increment();
+            logger.info("onNext({}) sampled 1 in {}", signal.get(), sampleRate);
+        }
+    }
+}
@@ -0,0 +1,282 @@
+package com.learnreactiveprogramming.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * onBackpressureBuffer that doesn't grow the heap : the source is requested unbounded, up to maxInMemory elements
+ * are kept on heap and the overflow is appended to memory mapped segment files in directory.
+ * Elements are replayed in order as downstream requests them, segments are deleted once read and every remaining
+ * segment is deleted on cancel or termination.
+ * <p>
+ * Use it with transform : {@code flux.transform(spillingBuffer::apply)}.
+ */
+public class SpillingBuffer<T> {
+
+    public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+    private final int maxInMemory;
+    private final int segmentSize;
+    private final Path directory;
+    private final Codec<T> codec;
+
+    private final LongAdder spilled = new LongAdder();
+    private final AtomicInteger openSegments = new AtomicInteger();
+
+    public SpillingBuffer(int maxInMemory, Path directory, Codec<T> codec) {
+        this(maxInMemory, DEFAULT_SEGMENT_SIZE, directory, codec);
+    }
+
+    public SpillingBuffer(int maxInMemory, int segmentSize, Path directory, Codec<T> codec) {
+        if (maxInMemory <= 0) {
+            throw new IllegalArgumentException("maxInMemory > 0 required but it was " + maxInMemory);
+        }
+        this.maxInMemory = maxInMemory;
+        this.segmentSize = segmentSize;
+        this.directory = directory;
+        this.codec = codec;
+    }
+
+    public Flux<T> apply(Flux<T> source) {
+        return Flux.create(sink -> {
+            var buffer = new BufferSubscriber(sink);
+            sink.onRequest(n -> buffer.drain());
+            sink.onDispose(buffer::release);
+            source.subscribe(buffer);
+        });
+    }
+
+    /**
+     * Elements written to disk so far, across all the subscriptions.
+     */
+    public long getSpilledElements() {
+        return spilled.sum();
+    }
+
+    public int getOpenSegments() {
+        return openSegments.get();
+    }
+
+    public interface Codec<T> {
+
+        byte[] encode(T value);
+
+        T decode(byte[] bytes);
+
+        static <T> Codec<T> of(Function<T, byte[]> encoder, Function<byte[], T> decoder) {
+            return new Codec<>() {
+                @Override
+                public byte[] encode(T value) {
+                    return encoder.apply(value);
+                }
+
+                @Override
+                public T decode(byte[] bytes) {
+                    return decoder.apply(bytes);
+                }
+            };
+        }
+
+        static <T> Codec<T> json(ObjectMapper objectMapper, Class<T> type) {
+            return of(value -> {
+                try {
+                    return objectMapper.writeValueAsBytes(value);
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            }, bytes -> {
+                try {
+                    return objectMapper.readValue(bytes, type);
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+        }
+    }
+
+    private class BufferSubscriber extends BaseSubscriber<T> {
+
+        private final FluxSink<T> sink;
+        private final AtomicInteger wip = new AtomicInteger();
+
+        // guarded by this, the segments always hold elements newer than the in memory ones
+        private final Deque<T> memory = new ArrayDeque<>();
+        private final Deque<Segment> segments = new ArrayDeque<>();
+        private boolean released;
+
+        private volatile boolean done;
+        private volatile Throwable error;
+
+        BufferSubscriber(FluxSink<T> sink) {
+            this.sink = sink;
+        }
+
+        @Override
+        protected void hookOnNext(T value) {
+            synchronized (this) {
+                // a source may still emit after the cancel, nothing must be buffered or spilled any more
+                if (released) {
+                    return;
+                }
+                if (segments.isEmpty() && memory.size() < maxInMemory) {
+                    memory.add(value);
+                } else {
+                    spill(codec.encode(value));
+                }
+            }
+            drain();
+        }
+
+        @Override
+        protected void hookOnComplete() {
+            done = true;
+            drain();
+        }
+
+        @Override
+        protected void hookOnError(Throwable throwable) {
+            error = throwable;
+            done = true;
+            drain();
+        }
+
+        void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            var missed = 1;
+            do {
+                while (sink.requestedFromDownstream() > 0 && !sink.isCancelled()) {
+                    var value = poll();
+                    if (value == null) {
+                        break;
+                    }
+                    sink.next(value);
+                }
+                if (done && isEmpty() && !sink.isCancelled()) {
+                    if (error != null) {
+                        sink.error(error);
+                    } else {
+                        sink.complete();
+                    }
+                    return;
+                }
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        // cancels the source, then frees the heap and the disk
+        void release() {
+            cancel();
+            synchronized (this) {
+                released = true;
+                memory.clear();
+                segments.forEach(Segment::delete);
+                segments.clear();
+            }
+        }
+
+        private synchronized T poll() {
+            var value = memory.poll();
+            if (value != null) {
+                return value;
+            }
+            while (!segments.isEmpty()) {
+                var head = segments.peek();
+                var bytes = head.read();
+                if (bytes != null) {
+                    return codec.decode(bytes);
+                }
+                // once the last segment is drained the next elements go to the heap again
+                head.delete();
+                segments.poll();
+            }
+            return null;
+        }
+
+        private synchronized boolean isEmpty() {
+            return memory.isEmpty() && segments.stream().allMatch(Segment::isDrained);
+        }
+
+        private void spill(byte[] bytes) {
+            var tail = segments.peekLast();
+            if (tail == null || !tail.hasRoomFor(bytes.length)) {
+                tail = new Segment(Math.max(segmentSize, Integer.BYTES + bytes.length));
+                segments.add(tail);
+            }
+            tail.write(bytes);
+            spilled.increment();
+        }
+    }
+
+    // length prefixed records appended to a memory mapped file, read back in the same order
+    private class Segment {
+
+        private final Path path;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        private int writePosition;
+        private int readPosition;
+
+        Segment(int size) {
+            try {
+                path = Files.createTempFile(directory, "spill-", ".segment");
+                channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+                openSegments.incrementAndGet();
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+
+        boolean hasRoomFor(int length) {
+            return buffer.capacity() - writePosition >= Integer.BYTES + length;
+        }
+
+        void write(byte[] bytes) {
+            buffer.putInt(writePosition, bytes.length);
+            buffer.duplicate().position(writePosition + Integer.BYTES).put(bytes);
+            writePosition += Integer.BYTES + bytes.length;
+        }
+
+        byte[] read() {
+            if (isDrained()) {
+                return null;
+            }
+            var bytes = new byte[buffer.getInt(readPosition)];
+            buffer.duplicate().position(readPosition + Integer.BYTES).get(bytes);
+            readPosition += Integer.BYTES + bytes.length;
+            return bytes;
+        }
+
+        boolean isDrained() {
+            return readPosition == writePosition;
+        }
+
+        // the mapping itself is released when the buffer is collected, the file is gone right away
+        void delete() {
+            try {
+                channel.close();
+                Files.deleteIfExists(path);
+                openSegments.decrementAndGet();
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.learnreactiveprogramming.util;
+
+import lombok.Value;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.reactivestreams.Subscription;
+import reactor.core.CoreSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxOperator;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoOperator;
+import reactor.util.context.Context;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per stage latency, from subscription to the first value (Mono) or to termination (Flux), recorded into wait free
+ * HdrHistograms. Recording doesn't allocate : the histograms have a fixed range (values above it are clamped)
+ * and the operator only keeps a start timestamp in its subscriber.
+ * <p>
+ * A stage cancelled before its first value (Mono) or its termination (Flux) has no latency to record, it is
+ * counted apart, see {@code StageLatency.cancelled}.
+ */
+public class StageLatencyRecorder {
+
+    private static final StageLatencyRecorder DISABLED = new StageLatencyRecorder(null);
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private final Duration highestTrackable;
+    private final Map<String, Stage> stages = new ConcurrentHashMap<>();
+
+    public StageLatencyRecorder(Duration highestTrackable) {
+        this.highestTrackable = highestTrackable;
+    }
+
+    public static StageLatencyRecorder disabled() {
+        return DISABLED;
+    }
+
+    public boolean isEnabled() {
+        return highestTrackable != null;
+    }
+
+    public <T> Mono<T> mono(String stage, Mono<T> source) {
+        if (!isEnabled()) {
+            return source;
+        }
+        return new TimedMono<>(source, stage(stage));
+    }
+
+    public <T> Flux<T> flux(String stage, Flux<T> source) {
+        if (!isEnabled()) {
+            return source;
+        }
+        return new TimedFlux<>(source, stage(stage));
+    }
+
+    /**
+     * p50 / p99 / p999 per stage, sorted by stage name.
+     */
+    public Map<String, StageLatency> snapshot() {
+        var snapshot = new TreeMap<String, StageLatency>();
+        stages.forEach((name, stage) -> {
+            var copy = stage.histogram.copy();
+            snapshot.put(name, new StageLatency(copy.getTotalCount(), stage.cancelled.sum(),
+                    Duration.ofNanos(copy.getValueAtPercentile(50)),
+                    Duration.ofNanos(copy.getValueAtPercentile(99)),
+                    Duration.ofNanos(copy.getValueAtPercentile(99.9)),
+                    Duration.ofNanos(copy.getMaxValue())));
+        });
+        return snapshot;
+    }
+
+    public String dump() {
+        var dump = new StringBuilder(String.format("%-50s %10s %10s %12s %12s %12s %12s%n",
+                "stage", "count", "cancelled", "p50 (us)", "p99 (us)", "p999 (us)", "max (us)"));
+        snapshot().forEach((stage, latency) -> dump.append(String.format("%-50s %10d %10d %12.1f %12.1f %12.1f %12.1f%n",
+                stage, latency.getCount(), latency.getCancelled(), micros(latency.getP50()), micros(latency.getP99()),
+                micros(latency.getP999()), micros(latency.getMax()))));
+        return dump.toString();
+    }
+
+    public void reset() {
+        stages.values().forEach(Stage::reset);
+    }
+
+    private Stage stage(String name) {
+        var stage = stages.get(name);
+        if (stage == null) {
+            stage = stages.computeIfAbsent(name, key -> new Stage(highestTrackable));
+        }
+        return stage;
+    }
+
+    private static double micros(Duration duration) {
+        return duration.toNanos() / 1000d;
+    }
+
+    @Value
+    public static class StageLatency {
+        long count;
+        long cancelled;
+        Duration p50;
+        Duration p99;
+        Duration p999;
+        Duration max;
+    }
+
+    private static final class Stage {
+        final ConcurrentHistogram histogram;
+        final LongAdder cancelled = new LongAdder();
+
+        Stage(Duration highestTrackable) {
+            histogram = new ConcurrentHistogram(1, highestTrackable.toNanos(), SIGNIFICANT_DIGITS);
+        }
+
+        void reset() {
+            histogram.reset();
+            cancelled.reset();
+        }
+    }
+
+    private static final class TimedMono<T> extends MonoOperator<T, T> {
+        private final Stage stage;
+
+        TimedMono(Mono<? extends T> source, Stage stage) {
+            super(source);
+            this.stage = stage;
+        }
+
+        @Override
+        public void subscribe(CoreSubscriber<? super T> actual) {
+            source.subscribe(new TimedSubscriber<T>(actual, stage, true));
+        }
+    }
+
+    private static final class TimedFlux<T> extends FluxOperator<T, T> {
+        private final Stage stage;
+
+        TimedFlux(Flux<? extends T> source, Stage stage) {
+            super(source);
+            this.stage = stage;
+        }
+
+        @Override
+        public void subscribe(CoreSubscriber<? super T> actual) {
+            source.subscribe(new TimedSubscriber<T>(actual, stage, false));
+        }
+    }
+
+    private static final class TimedSubscriber<T> implements CoreSubscriber<T>, Subscription {
+        @SuppressWarnings("rawtypes")
+        private static final AtomicIntegerFieldUpdater<TimedSubscriber> DONE =
+                AtomicIntegerFieldUpdater.newUpdater(TimedSubscriber.class, "done");
+
+        private final CoreSubscriber<? super T> actual;
+        private final Stage stage;
+        private final boolean recordOnFirstValue;
+        private Subscription subscription;
+        private long start;
+        // a cancel can race with the signals
+        private volatile int done;
+
+        TimedSubscriber(CoreSubscriber<? super T> actual, Stage stage, boolean recordOnFirstValue) {
+            this.actual = actual;
+            this.stage = stage;
+            this.recordOnFirstValue = recordOnFirstValue;
+        }
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            this.subscription = subscription;
+            this.start = System.nanoTime();
+            actual.onSubscribe(this);
+        }
+
+        @Override
+        public void onNext(T value) {
+            if (recordOnFirstValue) {
+                record();
+            }
+            actual.onNext(value);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            record();
+            actual.onError(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            record();
+            actual.onComplete();
+        }
+
+        @Override
+        public void request(long n) {
+            subscription.request(n);
+        }
+
+        @Override
+        public void cancel() {
+            if (DONE.compareAndSet(this, 0, 1)) {
+                stage.cancelled.increment();
+            }
+            subscription.cancel();
+        }
+
+        @Override
+        public Context currentContext() {
+            return actual.currentContext();
+        }
+
+        private void record() {
+            if (DONE.compareAndSet(this, 0, 1)) {
+                var histogram = stage.histogram;
+                histogram.recordValue(Math.min(System.nanoTime() - start, histogram.getHighestTrackableValue()));
+            }
+        }
+    }
+}
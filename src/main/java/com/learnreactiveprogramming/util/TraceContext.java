@@ -0,0 +1,308 @@
+package com.learnreactiveprogramming.util;
+
+import org.reactivestreams.Subscription;
+import org.slf4j.MDC;
+import reactor.core.CoreSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxOperator;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoOperator;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.context.Context;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Trace id propagation for pipelines that hop across schedulers.
+ * <p>
+ * The trace id lives in the Reactor Context under {@link #TRACE_ID}, {@code flux(..)} / {@code mono(..)} expose it
+ * to the current thread (and to the MDC) while subscribing, requesting and signalling. The scheduler hook captures it
+ * when a task is scheduled and restores it on the worker that runs the task, so logs after a subscribeOn / publishOn
+ * keep it. The hook also times every task : queued (runnable to started) and executing.
+ * <p>
+ * A task becomes runnable once its requested delay has elapsed, and again at every period for periodic tasks. Only
+ * the executors of the schedulers created after the installation know about delays. On the others the queued time
+ * runs from the scheduling call, and periodic tasks are only recorded on their first run.
+ * <pre>
+ * TraceContext.installSchedulerHook();
+ * flux.transform(TraceContext::flux)
+ *     .contextWrite(TraceContext.withTraceId(traceId));
+ * </pre>
+ */
+public final class TraceContext {
+
+    public static final String TRACE_ID = "traceId";
+
+    private static final String HOOK_KEY = TraceContext.class.getName();
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+    // when the task running on this thread became runnable, set by ReadyTimeExecutor
+    private static final long UNKNOWN = Long.MIN_VALUE;
+    private static final ThreadLocal<long[]> READY_AT = ThreadLocal.withInitial(() -> new long[]{UNKNOWN});
+
+    private TraceContext() {
+    }
+
+    public static String newTraceId() {
+        return String.format("%016x", ThreadLocalRandom.current().nextLong());
+    }
+
+    public static Context withTraceId(String traceId) {
+        return Context.of(TRACE_ID, traceId);
+    }
+
+    /**
+     * Trace id of the pipeline running on this thread, null outside of a traced pipeline.
+     */
+    public static String currentTraceId() {
+        return CURRENT.get();
+    }
+
+    public static <T> Flux<T> flux(Flux<T> source) {
+        return new TracedFlux<>(source);
+    }
+
+    public static <T> Mono<T> mono(Mono<T> source) {
+        return new TracedMono<>(source);
+    }
+
+    /**
+     * Restores the trace id on every scheduler hop, replaces any previously installed hook.
+     */
+    public static SchedulerSpans installSchedulerHook() {
+        return installSchedulerHook(span -> {
+        });
+    }
+
+    /**
+     * Same as {@link #installSchedulerHook()}, onSpan is called on the worker thread for every traced task.
+     */
+    public static SchedulerSpans installSchedulerHook(Consumer<SchedulerSpans.Span> onSpan) {
+        var spans = new SchedulerSpans(onSpan);
+        Schedulers.onScheduleHook(HOOK_KEY, task -> decorate(task, spans));
+        Schedulers.setExecutorServiceDecorator(HOOK_KEY, (scheduler, executor) -> new ReadyTimeExecutor(executor));
+        return spans;
+    }
+
+    public static void removeSchedulerHook() {
+        Schedulers.resetOnScheduleHook(HOOK_KEY);
+        Schedulers.removeExecutorServiceDecorator(HOOK_KEY);
+    }
+
+    // called on the scheduling thread, the returned task runs on the worker
+    private static Runnable decorate(Runnable task, SchedulerSpans spans) {
+        var traceId = CURRENT.get();
+        var scheduledAt = System.nanoTime();
+        var ran = new AtomicBoolean();
+        return () -> {
+            var previous = set(traceId);
+            var readyAt = READY_AT.get()[0];
+            var firstRun = ran.compareAndSet(false, true);
+            var start = System.nanoTime();
+            try {
+                task.run();
+            } finally {
+                var executing = System.nanoTime() - start;
+                if (readyAt != UNKNOWN) {
+                    spans.record(traceId, Math.max(0, start - readyAt), executing);
+                } else if (firstRun) {
+                    spans.record(traceId, start - scheduledAt, executing);
+                }
+                set(previous);
+            }
+        };
+    }
+
+    private static String set(String traceId) {
+        var previous = CURRENT.get();
+        if (traceId == null) {
+            CURRENT.remove();
+            MDC.remove(TRACE_ID);
+        } else {
+            CURRENT.set(traceId);
+            MDC.put(TRACE_ID, traceId);
+        }
+        return previous;
+    }
+
+    // tells the scheduler hook when each run of a task became runnable
+    private static final class ReadyTimeExecutor extends DecoratingExecutor {
+
+        ReadyTimeExecutor(ScheduledExecutorService delegate) {
+            super(delegate);
+        }
+
+        @Override
+        Runnable decorate(Runnable task, long delayNanos) {
+            var readyAt = System.nanoTime() + delayNanos;
+            return () -> runReady(readyAt, task);
+        }
+
+        @Override
+        <T> Callable<T> decorate(Callable<T> task, long delayNanos) {
+            var readyAt = System.nanoTime() + delayNanos;
+            return () -> runReady(readyAt, task);
+        }
+
+        @Override
+        Runnable decoratePeriodic(Runnable task, long initialDelayNanos, long periodNanos, boolean fixedRate) {
+            var nextReadyAt = new AtomicLong(System.nanoTime() + initialDelayNanos);
+            return () -> {
+                var readyAt = nextReadyAt.get();
+                try {
+                    runReady(readyAt, task);
+                } finally {
+                    nextReadyAt.set(fixedRate ? readyAt + periodNanos : System.nanoTime() + periodNanos);
+                }
+            };
+        }
+
+        private static <T> T runReady(long readyAt, Callable<T> task) throws Exception {
+            var holder = READY_AT.get();
+            var previous = holder[0];
+            holder[0] = readyAt;
+            try {
+                return task.call();
+            } finally {
+                holder[0] = previous;
+            }
+        }
+
+        private static void runReady(long readyAt, Runnable task) {
+            var holder = READY_AT.get();
+            var previous = holder[0];
+            holder[0] = readyAt;
+            try {
+                task.run();
+            } finally {
+                holder[0] = previous;
+            }
+        }
+    }
+
+    private static final class TracedFlux<T> extends FluxOperator<T, T> {
+
+        TracedFlux(Flux<? extends T> source) {
+            super(source);
+        }
+
+        @Override
+        public void subscribe(CoreSubscriber<? super T> actual) {
+            String traceId = actual.currentContext().getOrDefault(TRACE_ID, null);
+            if (traceId == null) {
+                source.subscribe(actual);
+                return;
+            }
+            var previous = set(traceId);
+            try {
+                source.subscribe(new TracedSubscriber<T>(actual, traceId));
+            } finally {
+                set(previous);
+            }
+        }
+    }
+
+    private static final class TracedMono<T> extends MonoOperator<T, T> {
+
+        TracedMono(Mono<? extends T> source) {
+            super(source);
+        }
+
+        @Override
+        public void subscribe(CoreSubscriber<? super T> actual) {
+            String traceId = actual.currentContext().getOrDefault(TRACE_ID, null);
+            if (traceId == null) {
+                source.subscribe(actual);
+                return;
+            }
+            var previous = set(traceId);
+            try {
+                source.subscribe(new TracedSubscriber<T>(actual, traceId));
+            } finally {
+                set(previous);
+            }
+        }
+    }
+
+    // every call crossing the operator, in either direction, runs with the trace id set
+    private static final class TracedSubscriber<T> implements CoreSubscriber<T>, Subscription {
+        private final CoreSubscriber<? super T> actual;
+        private final String traceId;
+        private Subscription subscription;
+
+        TracedSubscriber(CoreSubscriber<? super T> actual, String traceId) {
+            this.actual = actual;
+            this.traceId = traceId;
+        }
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            this.subscription = subscription;
+            var previous = set(traceId);
+            try {
+                actual.onSubscribe(this);
+            } finally {
+                set(previous);
+            }
+        }
+
+        @Override
+        public void onNext(T value) {
+            var previous = set(traceId);
+            try {
+                actual.onNext(value);
+            } finally {
+                set(previous);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            var previous = set(traceId);
+            try {
+                actual.onError(throwable);
+            } finally {
+                set(previous);
+            }
+        }
+
+        @Override
+        public void onComplete() {
+            var previous = set(traceId);
+            try {
+                actual.onComplete();
+            } finally {
+                set(previous);
+            }
+        }
+
+        @Override
+        public void request(long n) {
+            var previous = set(traceId);
+            try {
+                subscription.request(n);
+            } finally {
+                set(previous);
+            }
+        }
+
+        @Override
+        public void cancel() {
+            var previous = set(traceId);
+            try {
+                subscription.cancel();
+            } finally {
+                set(previous);
+            }
+        }
+
+        @Override
+        public Context currentContext() {
+            return actual.currentContext();
+        }
+    }
+}
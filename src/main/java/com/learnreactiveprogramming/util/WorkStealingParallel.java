@@ -0,0 +1,388 @@
+package com.learnreactiveprogramming.util;
+
+import lombok.Builder;
+import lombok.Value;
+import org.reactivestreams.Subscription;
+import reactor.core.CoreSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Operators;
+import reactor.core.publisher.ParallelFlux;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.concurrent.Queues;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Replacement for {@code flux.parallel().runOn(scheduler)} when the cost per element is skewed.
+ * <p>
+ * Elements are still dealt round-robin, but to per rail deques : a rail takes from the head of its own deque and,
+ * once it's empty, steals from the tail of the others. A rail stuck on an expensive element no longer holds back
+ * the ones queued behind it, the idle rails pick them up.
+ * <p>
+ * The number of rails taking work adapts to the throughput, hill climbing style : every adaptInterval one rail is
+ * added or removed, and the direction is reversed when the throughput dropped since the previous step.
+ * {@link #parallelism()} stays maxRails, inactive rails just don't take new elements.
+ * <p>
+ * Every subscription gets its own rails and hill climbing state, the instance only aggregates the counters.
+ */
+public class WorkStealingParallel<T> extends ParallelFlux<T> {
+
+    private final Flux<? extends T> source;
+    private final Scheduler scheduler;
+    private final Settings settings;
+
+    private final LongAdder steals = new LongAdder();
+    private final LongAdder adjustments = new LongAdder();
+    private volatile Coordinator latest;
+
+    public WorkStealingParallel(Flux<? extends T> source, Scheduler scheduler) {
+        this(source, scheduler, Settings.builder().build());
+    }
+
+    public WorkStealingParallel(Flux<? extends T> source, Scheduler scheduler, Settings settings) {
+        if (settings.getMinRails() < 1 || settings.getMinRails() > settings.getMaxRails()) {
+            throw new IllegalArgumentException("1 <= minRails <= maxRails required but it was "
+                    + settings.getMinRails() + ", " + settings.getMaxRails());
+        }
+        this.source = source;
+        this.scheduler = scheduler;
+        this.settings = settings;
+    }
+
+    @Override
+    public int parallelism() {
+        return settings.getMaxRails();
+    }
+
+    @Override
+    public void subscribe(CoreSubscriber<? super T>[] subscribers) {
+        if (!validate(subscribers)) {
+            return;
+        }
+        var coordinator = new Coordinator(subscribers);
+        latest = coordinator;
+        coordinator.start();
+    }
+
+    /**
+     * Elements taken from another rail's deque, across all the subscriptions.
+     */
+    public long getSteals() {
+        return steals.sum();
+    }
+
+    /**
+     * Rail count changes, across all the subscriptions.
+     */
+    public long getAdjustments() {
+        return adjustments.sum();
+    }
+
+    /**
+     * Rails taking work in the latest subscription.
+     */
+    public int getActiveRails() {
+        var coordinator = latest;
+        return coordinator == null ? settings.getMaxRails() : coordinator.activeRails.get();
+    }
+
+    @Value
+    @Builder
+    public static class Settings {
+        @Builder.Default
+        int maxRails = Schedulers.DEFAULT_POOL_SIZE;
+        @Builder.Default
+        int minRails = 1;
+        @Builder.Default
+        int prefetch = Queues.SMALL_BUFFER_SIZE;
+        @Builder.Default
+        Duration adaptInterval = Duration.ofMillis(100);
+    }
+
+    private class Coordinator implements CoreSubscriber<T> {
+
+        private final List<Rail> rails;
+        private final int limit = settings.getPrefetch() - (settings.getPrefetch() >> 2);
+        private final AtomicInteger cancelledRails = new AtomicInteger();
+        private final AtomicLong consumed = new AtomicLong();
+        private final AtomicInteger activeRails;
+
+        // request and cancel go through drainUpstream, rails consume concurrently but the upstream sees them serially
+        private final AtomicLong toRequest = new AtomicLong();
+        private final AtomicInteger upstreamWip = new AtomicInteger();
+        private volatile boolean upstreamCancelled;
+        private boolean cancelSent;
+
+        private volatile Subscription upstream;
+        private volatile boolean done;
+        private volatile Throwable error;
+        // only touched by onNext, which is serialized
+        private int next;
+
+        // guarded by adapting
+        private final AtomicBoolean adapting = new AtomicBoolean();
+        private volatile long windowStart = System.nanoTime();
+        private long windowConsumed;
+        private double lastThroughput;
+        private int direction = -1;
+
+        Coordinator(CoreSubscriber<? super T>[] subscribers) {
+            rails = new ArrayList<>(subscribers.length);
+            for (int i = 0; i < subscribers.length; i++) {
+                rails.add(new Rail(i, subscribers[i], scheduler.createWorker()));
+            }
+            activeRails = new AtomicInteger(subscribers.length);
+        }
+
+        void start() {
+            for (var rail : rails) {
+                rail.actual.onSubscribe(rail);
+            }
+            source.subscribe(this);
+        }
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            if (Operators.validate(upstream, subscription)) {
+                upstream = subscription;
+                request(settings.getPrefetch());
+            }
+        }
+
+        @Override
+        public void onNext(T value) {
+            var active = activeRails.get();
+            var index = next < active ? next : 0;
+            next = index + 1;
+            var rail = rails.get(index);
+            rail.queue.offer(value);
+            rail.drain();
+            // the owner may be busy with an expensive element, let an idle rail steal this one
+            for (int i = 1; i < active; i++) {
+                var other = rails.get((index + i) % active);
+                if (other.wip.get() == 0) {
+                    other.drain();
+                    break;
+                }
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+            done = true;
+            drainAll();
+        }
+
+        @Override
+        public void onComplete() {
+            done = true;
+            drainAll();
+        }
+
+        private void drainAll() {
+            for (var rail : rails) {
+                rail.drain();
+            }
+        }
+
+        private boolean allEmpty() {
+            for (var rail : rails) {
+                if (!rail.queue.isEmpty()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void request(long n) {
+            toRequest.getAndUpdate(current -> Operators.addCap(current, n));
+            drainUpstream();
+        }
+
+        private void cancelUpstream() {
+            upstreamCancelled = true;
+            drainUpstream();
+        }
+
+        private void drainUpstream() {
+            if (upstreamWip.getAndIncrement() != 0) {
+                return;
+            }
+            var missed = 1;
+            do {
+                var subscription = upstream;
+                // before onSubscribe, it drains again once the subscription is set
+                if (subscription != null && !cancelSent) {
+                    if (upstreamCancelled) {
+                        cancelSent = true;
+                        subscription.cancel();
+                    } else {
+                        var n = toRequest.getAndSet(0);
+                        if (n != 0) {
+                            subscription.request(n);
+                        }
+                    }
+                }
+                missed = upstreamWip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private T steal(int thief) {
+            for (int i = 1; i < rails.size(); i++) {
+                var value = rails.get((thief + i) % rails.size()).queue.pollLast();
+                if (value != null) {
+                    steals.increment();
+                    return value;
+                }
+            }
+            return null;
+        }
+
+        private void onConsumed() {
+            var count = consumed.incrementAndGet();
+            if (count % limit == 0) {
+                request(limit);
+            }
+            var now = System.nanoTime();
+            if (now - windowStart >= settings.getAdaptInterval().toNanos() && adapting.compareAndSet(false, true)) {
+                try {
+                    adapt(now, count);
+                } finally {
+                    adapting.set(false);
+                }
+            }
+        }
+
+        private void adapt(long now, long count) {
+            var throughput = (count - windowConsumed) / (double) (now - windowStart);
+            windowConsumed = count;
+            windowStart = now;
+            if (throughput < lastThroughput) {
+                direction = -direction;
+            }
+            lastThroughput = throughput;
+
+            var current = activeRails.get();
+            var target = Math.max(settings.getMinRails(), Math.min(rails.size(), current + direction));
+            if (target == current) {
+                // at a bound, the next probe goes the other way
+                direction = -direction;
+                return;
+            }
+            activeRails.set(target);
+            adjustments.increment();
+            if (target > current) {
+                rails.get(target - 1).drain();
+            } else {
+                // the deactivated rail leaves its deque behind, the active ones may be idle and must steal it
+                for (int i = 0; i < target; i++) {
+                    rails.get(i).drain();
+                }
+            }
+        }
+
+        private class Rail implements Subscription, Runnable {
+
+            private final int index;
+            private final CoreSubscriber<? super T> actual;
+            private final Scheduler.Worker worker;
+            private final ConcurrentLinkedDeque<T> queue = new ConcurrentLinkedDeque<>();
+            private final AtomicInteger wip = new AtomicInteger();
+            private final AtomicLong requested = new AtomicLong();
+            private volatile boolean cancelled;
+            // only touched by run
+            private long emitted;
+            private boolean terminated;
+
+            Rail(int index, CoreSubscriber<? super T> actual, Scheduler.Worker worker) {
+                this.index = index;
+                this.actual = actual;
+                this.worker = worker;
+            }
+
+            @Override
+            public void request(long n) {
+                if (Operators.validate(n)) {
+                    requested.getAndUpdate(current -> Operators.addCap(current, n));
+                    drain();
+                }
+            }
+
+            @Override
+            public void cancel() {
+                if (!cancelled) {
+                    cancelled = true;
+                    // the elements left in its deque can still be stolen by the other rails
+                    if (cancelledRails.incrementAndGet() == rails.size()) {
+                        cancelUpstream();
+                    }
+                    drain();
+                }
+            }
+
+            void drain() {
+                if (wip.getAndIncrement() == 0) {
+                    worker.schedule(this);
+                }
+            }
+
+            // leaves wip above zero once cancelled or terminated, so nothing gets scheduled any more
+            @Override
+            public void run() {
+                var missed = 1;
+                do {
+                    if (cancelled || terminated) {
+                        worker.dispose();
+                        return;
+                    }
+                    if (done && error != null) {
+                        queue.clear();
+                        terminate();
+                        return;
+                    }
+                    var r = requested.get();
+                    var e = emitted;
+                    while (e != r && !cancelled && index < activeRails.get()) {
+                        var value = queue.pollFirst();
+                        if (value == null) {
+                            value = steal(index);
+                        }
+                        if (value == null) {
+                            break;
+                        }
+                        actual.onNext(value);
+                        e++;
+                        onConsumed();
+                    }
+                    emitted = e;
+                    if (done && allEmpty()) {
+                        terminate();
+                        // rails that found elements left in other deques are waiting for a wake up
+                        drainAll();
+                        return;
+                    }
+                    missed = wip.addAndGet(-missed);
+                } while (missed != 0);
+            }
+
+            private void terminate() {
+                terminated = true;
+                if (error != null) {
+                    actual.onError(error);
+                } else {
+                    actual.onComplete();
+                }
+                worker.dispose();
+            }
+        }
+    }
+}
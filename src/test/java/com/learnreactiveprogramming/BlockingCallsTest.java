@@ -0,0 +1,104 @@
+package com.learnreactiveprogramming;
+
+import com.learnreactiveprogramming.service.FluxAndMonoGeneratorService;
+import com.learnreactiveprogramming.service.FluxAndMonoSchedulersService;
+import com.learnreactiveprogramming.service.MovieInfoService;
+import com.learnreactiveprogramming.service.MovieReactiveService;
+import com.learnreactiveprogramming.service.RevenueService;
+import com.learnreactiveprogramming.service.ReviewService;
+import com.learnreactiveprogramming.util.LatencySimulator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.blockhound.BlockHound;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * BlockHound stays installed for the whole JVM, so the callback only records blocking calls while a test is armed.
+ * The other tests keep using the blocking demos freely.
+ */
+public class BlockingCallsTest {
+
+    static final List<String> blockingCalls = new CopyOnWriteArrayList<>();
+    static volatile boolean armed;
+
+    LatencySimulator latency = LatencySimulator.fixed(Duration.ofMillis(10));
+
+    @BeforeAll
+    static void installBlockHound() {
+        // the demos log their signals, the console appender writes to stdout
+        BlockHound.install(builder -> builder
+                .allowBlockingCallsInside("ch.qos.logback.core.OutputStreamAppender", "append")
+                .blockingMethodCallback(method -> {
+                    if (armed) {
+                        blockingCalls.add(method.toString());
+                    }
+                }));
+    }
+
+    @BeforeEach
+    void arm() {
+        blockingCalls.clear();
+        armed = true;
+    }
+
+    @AfterEach
+    void disarm() {
+        armed = false;
+    }
+
+    @Test
+    void simulatedServices_doNotBlock() {
+        //given
+        var movieInfoService = new MovieInfoService();
+        movieInfoService.setLatency(latency);
+        var revenueService = new RevenueService();
+        revenueService.setLatency(latency);
+        var generatorService = new FluxAndMonoGeneratorService();
+        generatorService.setLatency(latency);
+        var schedulersService = new FluxAndMonoSchedulersService();
+        schedulersService.setLatency(latency);
+        var movieReactiveService = new MovieReactiveService(movieInfoService, new ReviewService(), revenueService);
+
+        //when
+        var calls = Mono.when(
+                movieInfoService.movieListAsync().subscribeOn(Schedulers.parallel()),
+                movieInfoService.retrieveMovieUsingIdAsync(1L).subscribeOn(Schedulers.parallel()),
+                generatorService.namesAsync().subscribeOn(Schedulers.parallel()),
+                schedulersService.explore_parallel_usingFlatMap().then(),
+                movieReactiveService.getMovieById_withRevenue(1L).subscribeOn(Schedulers.parallel()),
+                movieReactiveService.getAllMovieInfo_1().subscribeOn(Schedulers.parallel()).then(),
+                movieReactiveService.getMovieById_1(1L).subscribeOn(Schedulers.parallel()));
+
+        //then
+        StepVerifier.create(calls)
+                .verifyComplete();
+        assertEquals(List.of(), blockingCalls);
+    }
+
+    @Test
+    void blockingDelay_isFlagged() {
+        //given
+        var revenueService = new RevenueService();
+
+        //when
+        var revenueMono = Mono.fromCallable(() -> revenueService.getRevenue(1L))
+                .subscribeOn(Schedulers.parallel());
+
+        //then
+        StepVerifier.create(revenueMono)
+                .expectNextCount(1)
+                .verifyComplete();
+        assertFalse(blockingCalls.isEmpty());
+    }
+}
@@ -0,0 +1,75 @@
+package com.learnreactiveprogramming.service;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AggregationStrategyTest {
+
+    @Test
+    void aggregate_boundsInFlightCalls() {
+        //given
+        var strategy = new AggregationStrategy(2, 4, true);
+        var peak = new AtomicInteger();
+
+        //when
+        var flux = strategy.aggregate(Flux.range(1, 10), i -> Mono.just(i)
+                .delayElement(Duration.ofMillis(10))
+                .doOnNext(v -> peak.accumulateAndGet(strategy.maxInFlightPerRequest(), Math::max)));
+
+        //then
+        StepVerifier.create(flux)
+                .expectNext(1, 2, 3, 4, 5, 6, 7, 8, 9, 10)
+                .verifyComplete();
+
+        assertTrue(peak.get() > 0 && peak.get() <= 2);
+        assertEquals(0, strategy.inFlightSnapshot().size());
+    }
+
+    @Test
+    void aggregate_boundsEachRequestSeparately() {
+        //given
+        var strategy = new AggregationStrategy(2, 4, true);
+        var total = new AtomicInteger();
+        var perRequest = new AtomicInteger();
+
+        //when
+        var request = strategy.aggregate(Flux.range(1, 10), i -> Mono.just(i)
+                .delayElement(Duration.ofMillis(10))
+                .doOnNext(v -> {
+                    total.accumulateAndGet(strategy.totalInFlight(), Math::max);
+                    perRequest.accumulateAndGet(strategy.maxInFlightPerRequest(), Math::max);
+                }));
+
+        //then
+        StepVerifier.create(Flux.merge(request, request))
+                .expectNextCount(20)
+                .verifyComplete();
+
+        assertTrue(perRequest.get() > 0 && perRequest.get() <= 2);
+        assertTrue(total.get() <= 4);
+        assertEquals(0, strategy.maxInFlightPerRequest());
+    }
+
+    @Test
+    void aggregate_unordered() {
+        //given
+        var strategy = new AggregationStrategy(4, 4, false);
+
+        //when
+        var flux = strategy.aggregate(Flux.just(30, 10, 20), i -> Mono.just(i)
+                .delayElement(Duration.ofMillis(i)));
+
+        //then
+        StepVerifier.create(flux)
+                .expectNext(10, 20, 30)
+                .verifyComplete();
+    }
+}
@@ -1,8 +1,16 @@
 package com.learnreactiveprogramming.service;
 
+import com.learnreactiveprogramming.util.SchedulerSpans;
+import com.learnreactiveprogramming.util.TraceContext;
+import com.learnreactiveprogramming.util.WorkStealingParallel;
 import org.junit.jupiter.api.Test;
 import reactor.test.StepVerifier;
 
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
 class FluxAndMonoSchedulersServiceTest {
 
     FluxAndMonoSchedulersService fluxAndMonoThread = new FluxAndMonoSchedulersService();
@@ -38,6 +46,38 @@ class FluxAndMonoSchedulersServiceTest {
 
     }
 
+    @Test
+    void explore_parallel_workStealing() {
+
+        //given
+        fluxAndMonoThread.setWorkStealing(WorkStealingParallel.Settings.builder().build());
+
+        //when
+        var flux = fluxAndMonoThread.explore_parallel();
+
+        //then
+        StepVerifier.create(flux)
+                .expectNextCount(3)
+                .verifyComplete();
+
+    }
+
+    @Test
+    void explore_parallel_1_workStealing() {
+
+        //given
+        fluxAndMonoThread.setWorkStealing(WorkStealingParallel.Settings.builder().build());
+
+        //when
+        var flux = fluxAndMonoThread.explore_parallel_1();
+
+        //then
+        StepVerifier.create(flux)
+                .expectNextCount(6)
+                .verifyComplete();
+
+    }
+
     @Test
     void explore_parallel_usingFlatMap() {
 
@@ -132,4 +172,32 @@ class FluxAndMonoSchedulersServiceTest {
                 .verifyComplete();
 
     }
-}
\ No newline at end of file
+
+    @Test
+    void explore_subscribeOn_publishOn_traced() {
+
+        //given
+        List<SchedulerSpans.Span> spans = new CopyOnWriteArrayList<>();
+        TraceContext.installSchedulerHook(spans::add);
+
+        try {
+            //when
+            var flux = fluxAndMonoThread.
+                    explore_subscribeOn_publishOn()
+                    .contextWrite(TraceContext.withTraceId("trace-1"));
+
+            //then
+            StepVerifier.create(flux)
+                    .expectNextCount(6)
+                    .verifyComplete();
+            assertTrue(spans.stream().allMatch(span -> span.getTraceId().equals("trace-1")));
+            // upperCase holds the boundedElastic worker for a second per name
+            assertTrue(spans.stream()
+                    .filter(span -> span.getScheduler().equals("boundedElastic"))
+                    .anyMatch(span -> span.getExecuting().toMillis() >= 1000));
+            assertTrue(spans.stream().anyMatch(span -> span.getScheduler().equals("parallel")));
+        } finally {
+            TraceContext.removeSchedulerHook();
+        }
+    }
+}
@@ -7,6 +7,8 @@ import com.github.tomakehurst.wiremock.WireMockServer;
 import com.github.tomakehurst.wiremock.client.WireMock;
 import com.github.tomakehurst.wiremock.common.ConsoleNotifier;
 import com.github.tomakehurst.wiremock.core.Options;
+import com.github.tomakehurst.wiremock.stubbing.Scenario;
+import com.learnreactiveprogramming.util.HedgingPolicy;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -14,11 +16,17 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.core.io.buffer.DataBufferLimitException;
 import reactor.test.StepVerifier;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+
 import static com.github.tomakehurst.wiremock.client.WireMock.*;
 import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @ExtendWith(WireMockExtension.class)
 class MovieInfoServiceWireMockTest {
@@ -59,4 +67,148 @@ class MovieInfoServiceWireMockTest {
                 .verifyComplete();
     }
 
-}
\ No newline at end of file
+    @Test
+    void movieInfoFlux_stream() {
+        //given
+        stubFor(get(urlPathEqualTo("/movies/v1/movie_infos"))
+                .willReturn(WireMock.aResponse()
+                        .withStatus(HttpStatus.OK.value())
+                        .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_NDJSON_VALUE)
+                        .withBodyFile("all-movies-info.ndjson")));
+
+        //when
+        var movieInfoFlux = movieInfoService.retrieveAllMovieInfo_RestClient_stream();
+
+        //then
+        StepVerifier.create(movieInfoFlux)
+                .assertNext(movieInfo ->
+                        assertEquals("Batman Begins", movieInfo.getName())
+                )
+                .expectNextCount(6)
+                .verifyComplete();
+    }
+
+    @Test
+    void movieInfoFlux_stream_largeCatalog() {
+        //given
+        // far bigger than the per element cap, only decodes if the body is never aggregated in memory
+        var movieCount = 100_000;
+        var catalog = new StringBuilder();
+        for (int i = 1; i <= movieCount; i++) {
+            catalog.append("{\"movieInfoId\": ").append(i)
+                    .append(", \"name\": \"Movie ").append(i)
+                    .append("\", \"year\": 2005, \"cast\": [\"Christian Bale\"], \"release_date\": \"2005-06-15\"}\n");
+        }
+        stubFor(get(urlPathEqualTo("/movies/v1/movie_infos"))
+                .willReturn(WireMock.aResponse()
+                        .withStatus(HttpStatus.OK.value())
+                        .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_NDJSON_VALUE)
+                        .withBody(catalog.toString().getBytes(StandardCharsets.UTF_8))));
+
+        //when
+        var movieInfoFlux = movieInfoService.retrieveAllMovieInfo_RestClient_stream(1024);
+
+        //then
+        StepVerifier.create(movieInfoFlux)
+                .expectNextCount(movieCount)
+                .expectComplete()
+                .verify(Duration.ofSeconds(30));
+    }
+
+    @Test
+    void movieInfoFlux_stream_elementTooLarge() {
+        //given
+        stubFor(get(urlPathEqualTo("/movies/v1/movie_infos"))
+                .willReturn(WireMock.aResponse()
+                        .withStatus(HttpStatus.OK.value())
+                        .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_NDJSON_VALUE)
+                        .withBodyFile("all-movies-info.ndjson")));
+
+        //when
+        var movieInfoFlux = movieInfoService.retrieveAllMovieInfo_RestClient_stream(64);
+
+        //then
+        StepVerifier.create(movieInfoFlux)
+                // WebClient may wrap the decoding failure with the response details
+                .expectErrorMatches(ex -> ex instanceof DataBufferLimitException
+                        || ex.getCause() instanceof DataBufferLimitException)
+                .verify();
+    }
+
+    @Test
+    void retrieveMovieInfoById_RestClient_hedged() {
+        //given
+        // every other request hits the slow replica
+        stubFor(get(urlPathEqualTo("/movies/v1/movie_infos/1"))
+                .inScenario("replicas")
+                .whenScenarioStateIs(Scenario.STARTED)
+                .willSetStateTo("fast")
+                .willReturn(WireMock.aResponse()
+                        .withStatus(HttpStatus.OK.value())
+                        .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                        .withBodyFile("movie-info.json")
+                        .withFixedDelay(500)));
+        stubFor(get(urlPathEqualTo("/movies/v1/movie_infos/1"))
+                .inScenario("replicas")
+                .whenScenarioStateIs("fast")
+                .willSetStateTo(Scenario.STARTED)
+                .willReturn(WireMock.aResponse()
+                        .withStatus(HttpStatus.OK.value())
+                        .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                        .withBodyFile("movie-info.json")));
+        var calls = 20;
+
+        //when
+        var unhedgedP99 = p99(calls);
+        WireMock.resetAllScenarios();
+        var hedging = new HedgingPolicy(HedgingPolicy.Settings.builder()
+                .initialDelay(Duration.ofMillis(50))
+                .maxHedgeRatio(1.0)
+                .build());
+        movieInfoService.setHedging(hedging);
+        var hedgedP99 = p99(calls);
+
+        //then
+        assertTrue(unhedgedP99 >= 500);
+        assertTrue(hedgedP99 < 300);
+        assertEquals(calls, hedging.getHedgedCalls());
+    }
+
+    @Test
+    void retrieveMovieInfoById_RestClient_hedgeRatioCapped() {
+        //given
+        stubFor(get(urlPathEqualTo("/movies/v1/movie_infos/1"))
+                .willReturn(WireMock.aResponse()
+                        .withStatus(HttpStatus.OK.value())
+                        .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                        .withBodyFile("movie-info.json")
+                        .withFixedDelay(100)));
+        var hedging = new HedgingPolicy(HedgingPolicy.Settings.builder()
+                .initialDelay(Duration.ofMillis(10))
+                .maxHedgeRatio(0.1)
+                .build());
+        movieInfoService.setHedging(hedging);
+
+        //when
+        for (int i = 0; i < 20; i++) {
+            movieInfoService.retrieveMovieInfoById_RestClient(1L).block();
+        }
+
+        //then
+        assertEquals(20, hedging.getCalls());
+        assertEquals(2, hedging.getHedgedCalls());
+        verify(22, getRequestedFor(urlPathEqualTo("/movies/v1/movie_infos/1")));
+    }
+
+    private long p99(int calls) {
+        var latencies = new long[calls];
+        for (int i = 0; i < calls; i++) {
+            var start = System.nanoTime();
+            movieInfoService.retrieveMovieInfoById_RestClient(1L).block();
+            latencies[i] = Duration.ofNanos(System.nanoTime() - start).toMillis();
+        }
+        Arrays.sort(latencies);
+        return latencies[(int) Math.ceil(0.99 * calls) - 1];
+    }
+
+}
@@ -3,6 +3,10 @@ package com.learnreactiveprogramming.service;
 import com.learnreactiveprogramming.domain.MovieInfo;
 import com.learnreactiveprogramming.exception.NetworkException;
 import com.learnreactiveprogramming.exception.ServiceException;
+import com.learnreactiveprogramming.exception.MovieException;
+import com.learnreactiveprogramming.util.ReactiveMetrics;
+import com.learnreactiveprogramming.util.RetryBudget;
+import com.learnreactiveprogramming.util.RetryPolicy;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
@@ -10,11 +14,19 @@ import org.mockito.Mock;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.*;
 
@@ -43,6 +55,26 @@ public class MovieReactiveServiceMockTest {
     }
 
 
+    @Test
+    void getAllMovieInfo_aggregationInFlightGauge() {
+        var metrics = ReactiveMetrics.inMemory();
+        reactiveMovieService.setMetrics(metrics);
+        when(movieInfoService.retrieveMoviesFlux()).thenCallRealMethod();
+        when(reviewService.retrieveReviewsFlux(anyLong())).thenCallRealMethod();
+
+        var movieFlux = reactiveMovieService.getAllMovies();
+
+        StepVerifier.create(movieFlux)
+                .expectNextCount(3)
+                .verifyComplete();
+        var gauge = metrics.getRegistry().find("movieReactiveService.aggregation.inFlight").gauge();
+        assertNotNull(gauge);
+        assertEquals(0, gauge.value());
+        var perRequest = metrics.getRegistry().find("movieReactiveService.aggregation.maxInFlightPerRequest").gauge();
+        assertNotNull(perRequest);
+        assertEquals(0, perRequest.value());
+    }
+
     @Test
     void getAllMovieInfo_error() {
         var errorMessage = "Exception Occurred in Review Service";
@@ -172,4 +204,66 @@ public class MovieReactiveServiceMockTest {
 
         verify(reviewService, times(6)).retrieveReviewsFlux(isA(Long.class));
     }
-}
\ No newline at end of file
+
+    @Test
+    void getMovieById_coalescesAndCaches() {
+        var movieInfo = new MovieInfo(100l, "Batman Begins", 2005, List.of("Christian Bale", "Michael Cane"), LocalDate.parse("2005-06-15"));
+        when(movieInfoService.retrieveMovieInfoMonoUsingId(anyLong()))
+                .thenReturn(Mono.just(movieInfo).delayElement(Duration.ofMillis(100)));
+        when(reviewService.retrieveReviewsFlux(anyLong())).thenCallRealMethod();
+
+        var moviesFlux = Flux.range(1, 50)
+                .flatMap(i -> reactiveMovieService.getMovieById(100L));
+
+        StepVerifier.create(moviesFlux)
+                .expectNextCount(50)
+                .verifyComplete();
+
+        StepVerifier.create(reactiveMovieService.getMovieById(100L))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        verify(movieInfoService, times(1)).retrieveMovieInfoMonoUsingId(100L);
+        var stats = reactiveMovieService.movieCacheStats();
+        assertEquals(1, stats.getMisses());
+        assertEquals(49, stats.getCoalesced());
+        assertEquals(1, stats.getHits());
+    }
+
+    @Test
+    void getMovieById_invalidate() {
+        when(movieInfoService.retrieveMovieInfoMonoUsingId(anyLong())).thenCallRealMethod();
+        when(reviewService.retrieveReviewsFlux(anyLong())).thenCallRealMethod();
+
+        reactiveMovieService.getMovieById(100L).block();
+        reactiveMovieService.invalidateMovie(100L);
+        reactiveMovieService.getMovieById(100L).block();
+
+        verify(movieInfoService, times(2)).retrieveMovieInfoMonoUsingId(100L);
+    }
+
+    @Test
+    void movieUpdateFeed_replacedOnceThePollGivesUp() {
+        when(movieInfoService.retrieveAllMovieInfo_RestClient_ifNoneMatch(any()))
+                .thenReturn(Mono.error(new NetworkException("unreachable")));
+        reactiveMovieService.setRetryPolicy(new RetryPolicy(RetryPolicy.Settings.builder()
+                .maxRetries(1)
+                .minBackoff(Duration.ofMillis(1))
+                .maxBackoff(Duration.ofMillis(1))
+                .build(), RetryBudget.unlimited()));
+
+        var feed = reactiveMovieService.movieUpdateFeed(2);
+        StepVerifier.create(feed.updates())
+                .expectError(MovieException.class)
+                .verify(Duration.ofSeconds(5));
+
+        assertTrue(feed.isTerminated());
+        var replacement = reactiveMovieService.movieUpdateFeed(2);
+        assertNotSame(feed, replacement);
+        // the replacement polls again instead of handing out the dead feed
+        StepVerifier.create(replacement.updates())
+                .expectError(MovieException.class)
+                .verify(Duration.ofSeconds(5));
+        verify(movieInfoService, times(4)).retrieveAllMovieInfo_RestClient_ifNoneMatch(any());
+    }
+}
@@ -4,10 +4,16 @@ import com.learnreactiveprogramming.domain.Movie;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 
 class MovieReactiveServiceTest {
@@ -124,10 +130,33 @@ class MovieReactiveServiceTest {
                 .assertNext(movie -> {
                     assertEquals("Batman Begins", movie.getMovieInfo().getName());
                     assertEquals(movie.getReviewList().size(), 2);
+                    assertNotNull(movie.getRevenue());
                 })
                 .verifyComplete();
     }
 
+    @Test
+    void getMovieInfoById_withRevenue_10kConcurrent() {
+
+        //given
+        var calls = 10_000;
+        var threads = ConcurrentHashMap.<String>newKeySet();
+
+        //when
+        var moviesFlux = Flux.range(1, calls)
+                .flatMap(movieId -> movieReactiveService.getMovieById_withRevenue(movieId)
+                        .doOnNext(movie -> threads.add(Thread.currentThread().getName())), calls);
+
+        //then
+        // each revenue lookup takes 1s, so this only finishes in time if no thread is parked per call
+        StepVerifier.create(moviesFlux)
+                .expectNextCount(calls)
+                .expectComplete()
+                .verify(Duration.ofSeconds(10));
+
+        assertTrue(threads.stream().noneMatch(name -> name.startsWith("boundedElastic")));
+    }
+
     @Test
     void getMovieInfoById_1() {
 
@@ -7,6 +7,7 @@ import com.github.tomakehurst.wiremock.WireMockServer;
 import com.github.tomakehurst.wiremock.client.WireMock;
 import com.github.tomakehurst.wiremock.common.ConsoleNotifier;
 import com.github.tomakehurst.wiremock.core.Options;
+import com.learnreactiveprogramming.domain.Movie;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
@@ -17,11 +18,20 @@ import org.springframework.http.MediaType;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.test.StepVerifier;
 
+import java.time.Duration;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.exactly;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
 import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
 import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.lessThanOrEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.moreThanOrEqualTo;
 import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.verify;
 import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 
 @ExtendWith(WireMockExtension.class)
 public class MovieReactiveServiceWireMockTest {
@@ -72,6 +82,156 @@ public class MovieReactiveServiceWireMockTest {
                 .verifyComplete();
     }
 
+    @Test
+    void getAllMovies_RestClient_batchesReviewCalls() {
+        //given
+        var movieCount = 7;
+        var batchSize = 3;
+        stubFor(get(urlPathEqualTo("/movies/v1/movie_infos"))
+                .willReturn(WireMock.aResponse()
+                        .withStatus(HttpStatus.OK.value())
+                        .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                        .withBodyFile("all-movies-info.json")));
+
+        stubFor(get(urlPathEqualTo("/movies/v1/reviews"))
+                .willReturn(WireMock.aResponse()
+                        .withStatus(HttpStatus.OK.value())
+                        .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                        .withBodyFile("reviews.json")));
+
+        //when
+        var moviesFlux = movieReactiveService.getAllMovies_RestClient(batchSize, Duration.ofSeconds(1));
+
+        //then
+        StepVerifier.create(moviesFlux)
+                .assertNext(movie -> {
+                    assertEquals(1L, movie.getMovieInfo().getMovieInfoId());
+                    assertEquals("Nolan is the real superhero", movie.getReviewList().get(0).getComment());
+                })
+                .assertNext(movie -> {
+                    assertEquals(2L, movie.getMovieInfo().getMovieInfoId());
+                    assertEquals(0, movie.getReviewList().size());
+                })
+                .expectNextCount(movieCount - 2)
+                .verifyComplete();
+
+        verify(exactly((int) Math.ceil((double) movieCount / batchSize)),
+                getRequestedFor(urlPathEqualTo("/movies/v1/reviews")));
+    }
+
+    @Test
+    void getAllMovies_RestClient_reviewTimeoutDegrades() {
+        //given
+        stubFor(get(urlPathEqualTo("/movies/v1/movie_infos"))
+                .willReturn(WireMock.aResponse()
+                        .withStatus(HttpStatus.OK.value())
+                        .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                        .withBodyFile("all-movies-info.json")));
+
+        stubFor(get(urlPathEqualTo("/movies/v1/reviews"))
+                .willReturn(WireMock.aResponse()
+                        .withStatus(HttpStatus.OK.value())
+                        .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                        .withBodyFile("reviews.json")));
+
+        // the review call of the second batch hangs
+        stubFor(get(urlPathEqualTo("/movies/v1/reviews"))
+                .withQueryParam("movieInfoId", equalTo("4,5,6"))
+                .atPriority(1)
+                .willReturn(WireMock.aResponse()
+                        .withStatus(HttpStatus.OK.value())
+                        .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                        .withBodyFile("reviews.json")
+                        .withFixedDelay(5000)));
+
+        //when
+        var moviesFlux = movieReactiveService.getAllMovies_RestClient(3, Duration.ofSeconds(1),
+                Duration.ofMillis(200), Duration.ofSeconds(10));
+
+        //then
+        StepVerifier.create(moviesFlux)
+                .assertNext(movie -> {
+                    assertEquals(1L, movie.getMovieInfo().getMovieInfoId());
+                    assertFalse(movie.isDegraded());
+                    assertEquals("Nolan is the real superhero", movie.getReviewList().get(0).getComment());
+                })
+                .expectNextCount(2)
+                .expectNextMatches(movie -> movie.getMovieInfo().getMovieInfoId() == 4L
+                        && movie.isDegraded() && movie.getReviewList().isEmpty())
+                .expectNextMatches(movie -> movie.isDegraded() && movie.getReviewList().isEmpty())
+                .expectNextMatches(movie -> movie.isDegraded() && movie.getReviewList().isEmpty())
+                .expectNextMatches(movie -> movie.getMovieInfo().getMovieInfoId() == 7L && !movie.isDegraded())
+                .expectComplete()
+                .verify(Duration.ofSeconds(3));
+    }
+
+    @Test
+    void getAllMovies_RestClient_requestDeadline() {
+        //given
+        stubFor(get(urlPathEqualTo("/movies/v1/movie_infos"))
+                .willReturn(WireMock.aResponse()
+                        .withStatus(HttpStatus.OK.value())
+                        .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                        .withBodyFile("all-movies-info.json")));
+
+        stubFor(get(urlPathEqualTo("/movies/v1/reviews"))
+                .willReturn(WireMock.aResponse()
+                        .withStatus(HttpStatus.OK.value())
+                        .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                        .withBodyFile("reviews.json")
+                        .withFixedDelay(5000)));
+
+        //when
+        var moviesFlux = movieReactiveService.getAllMovies_RestClient(3, Duration.ofSeconds(1),
+                Duration.ofSeconds(30), Duration.ofMillis(500));
+
+        //then
+        StepVerifier.create(moviesFlux)
+                .thenConsumeWhile(Movie::isDegraded)
+                .expectComplete()
+                .verify(Duration.ofSeconds(3));
+    }
+
+    @Test
+    void getAllMovies_poll_notModified() {
+        //given
+        stubFor(get(urlPathEqualTo("/movies/v1/movie_infos"))
+                .willReturn(WireMock.aResponse()
+                        .withStatus(HttpStatus.OK.value())
+                        .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                        .withHeader(HttpHeaders.ETAG, "\"v1\"")
+                        .withBodyFile("all-movies-info.json")));
+
+        stubFor(get(urlPathEqualTo("/movies/v1/movie_infos"))
+                .withHeader(HttpHeaders.IF_NONE_MATCH, equalTo("\"v1\""))
+                .atPriority(1)
+                .willReturn(WireMock.aResponse()
+                        .withStatus(HttpStatus.NOT_MODIFIED.value())));
+
+        stubFor(get(urlPathEqualTo("/movies/v1/reviews"))
+                .willReturn(WireMock.aResponse()
+                        .withStatus(HttpStatus.OK.value())
+                        .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                        .withBodyFile("reviews.json")));
+
+        //when
+        var moviesFlux = movieReactiveService.getAllMovies_poll(Duration.ofMillis(100), Duration.ofMillis(400));
+
+        //then
+        StepVerifier.create(moviesFlux)
+                .expectNextCount(7)
+                .expectNoEvent(Duration.ofSeconds(1))
+                .thenCancel()
+                .verify();
+
+        // 100, 200, 400, 400 ms between polls : the interval backs off while the catalog is unchanged
+        verify(moreThanOrEqualTo(2), getRequestedFor(urlPathEqualTo("/movies/v1/movie_infos"))
+                .withHeader(HttpHeaders.IF_NONE_MATCH, equalTo("\"v1\"")));
+        verify(lessThanOrEqualTo(6), getRequestedFor(urlPathEqualTo("/movies/v1/movie_infos")));
+        // 304s are not aggregated again
+        verify(exactly(1), getRequestedFor(urlPathEqualTo("/movies/v1/reviews")));
+    }
+
     @Test
     void getMovieById_RestClient() {
 
@@ -103,4 +263,41 @@ public class MovieReactiveServiceWireMockTest {
                 })
                 .verifyComplete();
     }
+
+    @Test
+    void getMovieById_RestClient_webClientFactory() {
+
+        //given
+        var movieInfoId = 1 ;
+        var webClientFactory = new WebClientFactory(WebClientFactory.Settings.builder()
+                .maxConnections(2)
+                .build());
+        var pooledService = new MovieReactiveService(new MovieInfoService(webClientFactory),
+                new ReviewService(webClientFactory));
+        stubFor(get(urlPathEqualTo("/movies/v1/movie_infos/"+movieInfoId))
+                .willReturn(WireMock.aResponse()
+                        .withStatus(HttpStatus.OK.value())
+                        .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                        .withBodyFile("movie-info.json")));
+
+        stubFor(get(urlPathEqualTo("/movies/v1/reviews"))
+                .willReturn(WireMock.aResponse()
+                        .withStatus(HttpStatus.OK.value())
+                        .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                        .withBodyFile("reviews.json")));
+
+        //when
+        var movieMono = pooledService.getMovieById_RestClient(movieInfoId);
+
+        //then
+        StepVerifier.create(movieMono)
+                .assertNext(movie -> assertEquals("Batman Begins", movie.getMovieInfo().getName()))
+                .verifyComplete();
+
+        var poolStats = webClientFactory.poolStats();
+        assertEquals(1, poolStats.size());
+        assertEquals(0, poolStats.get(0).getPending());
+        assertEquals(2, poolStats.get(0).getMaxConnections());
+        webClientFactory.dispose();
+    }
 }
@@ -0,0 +1,75 @@
+package com.learnreactiveprogramming.service;
+
+import com.learnreactiveprogramming.domain.Movie;
+import com.learnreactiveprogramming.domain.MovieInfo;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MovieUpdateFeedTest {
+
+    private Movie movie(long movieInfoId) {
+        return new Movie(new MovieInfo(movieInfoId, "Movie " + movieInfoId, 2005, List.of(), null), List.of());
+    }
+
+    @Test
+    void updates_sharedBySubscribers() {
+        //given
+        var upstreamSubscriptions = new AtomicInteger();
+        var upstream = Flux.just(movie(1), movie(2), movie(3))
+                .concatWith(Flux.never())
+                .doOnSubscribe(subscription -> upstreamSubscriptions.incrementAndGet());
+        var feed = new MovieUpdateFeed(upstream, 2);
+
+        //when
+        var first = feed.updates().subscribe();
+        var late = feed.updates();
+
+        //then
+        StepVerifier.create(late)
+                .expectNextMatches(movie -> movie.getMovieInfo().getMovieInfoId() == 2L)
+                .expectNextMatches(movie -> movie.getMovieInfo().getMovieInfoId() == 3L)
+                .then(feed::dispose)
+                .verifyComplete();
+        assertEquals(1, upstreamSubscriptions.get());
+        first.dispose();
+    }
+
+    @Test
+    void updates_disconnectsWhenTheLastSubscriberLeaves() {
+        //given
+        var upstreamSubscriptions = new AtomicInteger();
+        var upstreamCancellations = new AtomicInteger();
+        var upstream = Flux.just(movie(1))
+                .concatWith(Flux.never())
+                .doOnSubscribe(subscription -> upstreamSubscriptions.incrementAndGet())
+                .doOnCancel(upstreamCancellations::incrementAndGet);
+        var feed = new MovieUpdateFeed(upstream, 2);
+
+        //when
+        var first = feed.updates().subscribe();
+        var second = feed.updates().subscribe();
+        first.dispose();
+        var connectedWithOne = feed.isConnected();
+        second.dispose();
+
+        //then
+        assertTrue(connectedWithOne);
+        assertFalse(feed.isConnected());
+        assertEquals(1, upstreamCancellations.get());
+        StepVerifier.create(feed.updates())
+                .expectNextCount(1)
+                .then(() -> assertTrue(feed.isConnected()))
+                .thenCancel()
+                .verify();
+        assertEquals(2, upstreamSubscriptions.get());
+        assertFalse(feed.isConnected());
+    }
+}
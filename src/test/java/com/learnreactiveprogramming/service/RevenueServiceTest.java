@@ -0,0 +1,32 @@
+package com.learnreactiveprogramming.service;
+
+import com.learnreactiveprogramming.util.LatencySimulator;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RevenueServiceTest {
+
+    RevenueService revenueService = new RevenueService();
+
+    @Test
+    void getRevenueAsync_cacheStaysBounded() {
+        //given
+        revenueService.setLatency(LatencySimulator.none());
+        var movieIds = RevenueService.REVENUE_CACHE_SIZE + 100;
+
+        //when
+        var flux = Flux.range(0, movieIds)
+                .concatMap(movieId -> revenueService.getRevenueAsync((long) movieId));
+
+        //then
+        StepVerifier.create(flux)
+                .expectNextCount(movieIds)
+                .verifyComplete();
+        var stats = revenueService.revenueCacheStats();
+        assertEquals(RevenueService.REVENUE_CACHE_SIZE, stats.getSize());
+        assertEquals(100, stats.getEvictions());
+    }
+}
@@ -0,0 +1,98 @@
+package com.learnreactiveprogramming.util;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveLimiterTest {
+
+    // answers in 10ms up to 8 concurrent calls, then queues : latency grows with the overload
+    private static final int CAPACITY = 8;
+    private static final int QUEUE_SIZE = 32;
+
+    private final AtomicInteger concurrent = new AtomicInteger();
+    private final AtomicInteger peak = new AtomicInteger();
+
+    private Mono<Integer> call(int value) {
+        return Mono.defer(() -> {
+            var current = concurrent.incrementAndGet();
+            peak.accumulateAndGet(current, Math::max);
+            if (current > CAPACITY + QUEUE_SIZE) {
+                return Mono.error(new IllegalStateException("queue overflow : " + current));
+            }
+            var latency = Duration.ofMillis(10L * Math.max(1, (current + CAPACITY - 1) / CAPACITY));
+            return Mono.delay(latency).thenReturn(value);
+        }).doFinally(signalType -> concurrent.decrementAndGet());
+    }
+
+    @Test
+    void run_convergesToCapacity() {
+        //given
+        var limiter = new AdaptiveLimiter(AdaptiveLimiter.Settings.builder()
+                .initialLimit(1)
+                .maxLimit(64)
+                .build());
+
+        //when
+        var flux = Flux.range(1, 2_000)
+                .flatMap(i -> limiter.run(() -> call(i)), 256);
+
+        //then
+        StepVerifier.create(flux)
+                .expectNextCount(2_000)
+                .expectComplete()
+                .verify(Duration.ofSeconds(30));
+
+        var limit = limiter.getLimit();
+        assertTrue(limit >= CAPACITY / 2 && limit <= 2 * CAPACITY, "limit " + limit);
+        // grew from the initial limit of 1 but never overflowed the queue
+        assertTrue(peak.get() >= CAPACITY / 2 && peak.get() <= CAPACITY + QUEUE_SIZE, "peak concurrency " + peak.get());
+        assertEquals(0, limiter.getInFlight());
+        assertEquals(0, limiter.getWaiting());
+    }
+
+    @Test
+    void run_errorCutsLimit() {
+        //given
+        var limiter = new AdaptiveLimiter(AdaptiveLimiter.Settings.builder()
+                .initialLimit(10)
+                .backoffRatio(0.5)
+                .build());
+
+        //when
+        var flux = limiter.run(() -> Mono.error(new IllegalStateException("boom")));
+
+        //then
+        StepVerifier.create(flux)
+                .expectError(IllegalStateException.class)
+                .verify();
+        assertEquals(5, limiter.getLimit());
+    }
+
+    @Test
+    void run_cancelledWhileWaitingReleasesNothing() {
+        //given
+        var limiter = new AdaptiveLimiter(AdaptiveLimiter.Settings.builder()
+                .initialLimit(1)
+                .build());
+        var first = limiter.run(Mono::never).subscribe();
+
+        //when
+        var second = limiter.run(() -> Mono.just(1)).subscribe();
+        assertEquals(1, limiter.getWaiting());
+        second.dispose();
+
+        //then
+        assertEquals(0, limiter.getWaiting());
+        assertEquals(1, limiter.getInFlight());
+        first.dispose();
+        assertEquals(0, limiter.getInFlight());
+    }
+}
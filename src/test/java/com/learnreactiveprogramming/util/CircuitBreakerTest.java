@@ -0,0 +1,76 @@
+package com.learnreactiveprogramming.util;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CircuitBreakerTest {
+
+    CircuitBreaker circuitBreaker = new CircuitBreaker("reviews", CircuitBreaker.Settings.builder()
+            .windowSize(4)
+            .minimumCalls(2)
+            .failureRateThreshold(50)
+            .waitInOpenState(Duration.ofMillis(50))
+            .permittedCallsInHalfOpenState(1)
+            .build());
+
+    AtomicInteger calls = new AtomicInteger();
+
+    Mono<String> failingCall = Mono.defer(() -> {
+        calls.incrementAndGet();
+        return Mono.error(new IllegalStateException("Review Service is down"));
+    });
+
+    Mono<String> successfulCall = Mono.defer(() -> {
+        calls.incrementAndGet();
+        return Mono.just("Nolan is the real superhero");
+    });
+
+    @Test
+    void opens_andShortCircuitsToFallback() {
+        //given
+        for (int i = 0; i < 2; i++) {
+            StepVerifier.create(circuitBreaker.protectMono(failingCall, () -> Mono.just("fallback")))
+                    .expectErrorMessage("Review Service is down")
+                    .verify();
+        }
+
+        //when
+        var protectedCall = circuitBreaker.protectMono(successfulCall, () -> Mono.just("fallback"));
+
+        //then
+        StepVerifier.create(protectedCall)
+                .expectNext("fallback")
+                .verifyComplete();
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertEquals(2, calls.get());
+        assertEquals(1, circuitBreaker.getShortCircuitedCalls());
+    }
+
+    @Test
+    void halfOpen_closesAfterSuccessfulTrial() throws InterruptedException {
+        //given
+        for (int i = 0; i < 2; i++) {
+            StepVerifier.create(circuitBreaker.protectMono(failingCall, Mono::empty))
+                    .expectError()
+                    .verify();
+        }
+        Thread.sleep(100);
+
+        //when
+        var protectedCall = circuitBreaker.protectMono(successfulCall, () -> Mono.just("fallback"));
+
+        //then
+        StepVerifier.create(protectedCall)
+                .expectNext("Nolan is the real superhero")
+                .verifyComplete();
+        StepVerifier.create(circuitBreaker.stateChanges().take(1))
+                .expectNext(CircuitBreaker.State.CLOSED)
+                .verifyComplete();
+    }
+}
@@ -0,0 +1,62 @@
+package com.learnreactiveprogramming.util;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class HedgingPolicyTest {
+
+    private final HedgingPolicy hedging = new HedgingPolicy(HedgingPolicy.Settings.builder()
+            .initialDelay(Duration.ofMillis(20))
+            .maxHedgeRatio(1.0)
+            .build());
+
+    @Test
+    void hedge_primaryErrorWaitsForTheHedge() {
+        //given
+        var attempts = new AtomicInteger();
+
+        //when
+        var mono = hedging.hedge(() -> attempts.incrementAndGet() == 1
+                ? Mono.<String>error(new IllegalStateException("primary")).delaySubscription(Duration.ofMillis(50))
+                : Mono.just("backup").delayElement(Duration.ofMillis(50)));
+
+        //then
+        StepVerifier.create(mono)
+                .expectNext("backup")
+                .verifyComplete();
+        assertEquals(1, hedging.getHedgedCalls());
+    }
+
+    @Test
+    void hedge_bothFail() {
+        //given
+        var attempts = new AtomicInteger();
+
+        //when
+        var mono = hedging.hedge(() -> Mono.<String>error(new IllegalStateException("attempt " + attempts.incrementAndGet()))
+                .delaySubscription(Duration.ofMillis(50)));
+
+        //then
+        StepVerifier.create(mono)
+                .expectErrorMessage("attempt 2")
+                .verify(Duration.ofSeconds(1));
+    }
+
+    @Test
+    void hedge_primaryErrorBeforeTheHedge() {
+        //when
+        var mono = hedging.hedge(() -> Mono.<String>error(new IllegalStateException("primary")));
+
+        //then
+        StepVerifier.create(mono)
+                .expectErrorMessage("primary")
+                .verify();
+        assertEquals(0, hedging.getHedgedCalls());
+    }
+}
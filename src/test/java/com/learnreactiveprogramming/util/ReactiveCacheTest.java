@@ -0,0 +1,165 @@
+package com.learnreactiveprogramming.util;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ReactiveCacheTest {
+
+    @Test
+    void get_coalescesConcurrentLookups() {
+        //given
+        var cache = new ReactiveCache<Long, String>(Duration.ofMinutes(1));
+        var loads = new AtomicInteger();
+
+        //when
+        var flux = Flux.range(1, 100)
+                .flatMap(i -> cache.get(1L, key -> Mono.fromSupplier(() -> "movie-" + loads.incrementAndGet())
+                        .delayElement(Duration.ofMillis(100))));
+
+        //then
+        StepVerifier.create(flux)
+                .expectNextCount(100)
+                .verifyComplete();
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void get_reloadsAfterTtl() throws InterruptedException {
+        //given
+        var cache = new ReactiveCache<Long, Integer>(Duration.ofMillis(50));
+        var loads = new AtomicInteger();
+
+        //when
+        cache.get(1L, key -> Mono.fromSupplier(loads::incrementAndGet)).block();
+        Thread.sleep(100);
+        var reloaded = cache.get(1L, key -> Mono.fromSupplier(loads::incrementAndGet));
+
+        //then
+        StepVerifier.create(reloaded)
+                .expectNext(2)
+                .verifyComplete();
+    }
+
+    @Test
+    void get_doesNotCacheErrors() {
+        //given
+        var cache = new ReactiveCache<Long, Integer>(Duration.ofMinutes(1));
+        var loads = new AtomicInteger();
+
+        //when
+        StepVerifier.create(cache.get(1L, key -> Mono.error(new RuntimeException("boom"))))
+                .expectErrorMessage("boom")
+                .verify();
+
+        //then
+        StepVerifier.create(cache.get(1L, key -> Mono.fromSupplier(loads::incrementAndGet)))
+                .expectNext(1)
+                .verifyComplete();
+    }
+
+    @Test
+    void get_evictsLeastRecentlyUsed() {
+        //given
+        var cache = new ReactiveCache<Long, Integer>(Duration.ofMinutes(1), 2);
+        var loads = new AtomicInteger();
+
+        //when
+        cache.get(1L, key -> Mono.fromSupplier(loads::incrementAndGet)).block();
+        cache.get(2L, key -> Mono.fromSupplier(loads::incrementAndGet)).block();
+        // 1 becomes the most recently used, 2 is evicted by 3
+        cache.get(1L, key -> Mono.fromSupplier(loads::incrementAndGet)).block();
+        cache.get(3L, key -> Mono.fromSupplier(loads::incrementAndGet)).block();
+
+        //then
+        StepVerifier.create(cache.get(1L, key -> Mono.fromSupplier(loads::incrementAndGet)))
+                .expectNext(1)
+                .verifyComplete();
+        StepVerifier.create(cache.get(2L, key -> Mono.fromSupplier(loads::incrementAndGet)))
+                .expectNext(4)
+                .verifyComplete();
+    }
+
+    @Test
+    void stats_countsEvictions() {
+        //given
+        var cache = new ReactiveCache<Long, Long>(Duration.ofMinutes(1), 10);
+
+        //when
+        Flux.range(0, 25)
+                .concatMap(i -> cache.get((long) i, Mono::just))
+                .blockLast();
+        cache.get(24L, Mono::just).block();
+
+        //then
+        var stats = cache.stats();
+        assertEquals(15, stats.getEvictions());
+        assertEquals(10, stats.getSize());
+        assertEquals(25, stats.getMisses());
+        assertEquals(1, stats.getHits());
+    }
+
+    @Test
+    void get_loaderAppliedOnSubscription() {
+        //given
+        var cache = new ReactiveCache<Long, Integer>(Duration.ofMinutes(1), 10);
+        var loads = new AtomicInteger();
+
+        //when
+        var mono = cache.get(1L, key -> {
+            loads.incrementAndGet();
+            return Mono.just(1);
+        });
+
+        //then
+        assertEquals(0, loads.get());
+        StepVerifier.create(mono)
+                .expectNext(1)
+                .verifyComplete();
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void get_failedLoadsDoNotEvictLiveKeys() {
+        //given
+        var cache = new ReactiveCache<Long, Long>(Duration.ofMinutes(1), 2);
+        cache.get(1L, Mono::just).block();
+
+        //when
+        Flux.range(100, 50)
+                .flatMap(i -> cache.get((long) i, key -> Mono.<Long>error(new RuntimeException("boom")))
+                        .onErrorResume(ex -> Mono.empty()), 8)
+                .blockLast();
+
+        //then
+        var stats = cache.stats();
+        assertEquals(0, stats.getEvictions());
+        assertEquals(1, stats.getSize());
+        StepVerifier.create(cache.get(1L, key -> Mono.just(-1L)))
+                .expectNext(1L)
+                .verifyComplete();
+    }
+
+    @Test
+    void get_unboundedPurgesExpiredEntries() throws InterruptedException {
+        //given
+        var cache = new ReactiveCache<Long, Long>(Duration.ofMillis(20));
+        Flux.range(0, 100)
+                .concatMap(i -> cache.get((long) i, Mono::just))
+                .blockLast();
+        assertEquals(100, cache.size());
+
+        //when
+        Thread.sleep(50);
+        cache.get(1_000L, Mono::just).block();
+
+        //then
+        assertEquals(1, cache.size());
+    }
+}
@@ -0,0 +1,97 @@
+package com.learnreactiveprogramming.util;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReactiveMetricsTest {
+
+    @Test
+    void flux_countsSubscriptionsOnNextAndDuration() {
+        //given
+        var metrics = ReactiveMetrics.inMemory();
+        var registry = metrics.getRegistry();
+
+        //when
+        var flux = Flux.just("alex", "ben", "chloe")
+                .transform(metrics.flux("test.names"));
+
+        //then
+        StepVerifier.create(flux)
+                .expectNextCount(3)
+                .verifyComplete();
+        assertEquals(1, registry.get("test.names.subscribed").counter().count());
+        assertEquals(3, registry.get("test.names.onNext.delay").timer().count());
+        assertEquals(1, registry.get("test.names.flow.duration").tag("status", "completed").timer().count());
+    }
+
+    @Test
+    void mono_errorsTaggedByExceptionType() {
+        //given
+        var metrics = ReactiveMetrics.inMemory();
+        var registry = metrics.getRegistry();
+
+        //when
+        var mono = Mono.<String>error(new IllegalStateException("boom"))
+                .transform(metrics.mono("test.name"));
+
+        //then
+        StepVerifier.create(mono)
+                .expectError(IllegalStateException.class)
+                .verify();
+        var timer = registry.find("test.name.flow.duration")
+                .tag("status", "error")
+                .tagKeys("exception")
+                .timer();
+        assertNotNull(timer);
+        assertEquals(1, timer.count());
+        assertTrue(timer.getId().getTag("exception").contains("IllegalStateException"));
+    }
+
+    @Test
+    void disabled_isIdentity() {
+        //given
+        var flux = Flux.just("alex");
+
+        //when
+        Function<Flux<String>, Flux<String>> transformer = ReactiveMetrics.disabled().flux("test.names");
+
+        //then
+        assertSame(flux, transformer.apply(flux));
+    }
+
+    @Test
+    void startScrapeEndpoint() throws Exception {
+        //given
+        var metrics = ReactiveMetrics.prometheus();
+        Flux.just("alex", "ben")
+                .transform(metrics.flux("test.names"))
+                .blockLast();
+
+        //when
+        var server = metrics.startScrapeEndpoint(0);
+        try {
+            var response = HttpClient.newHttpClient().send(
+                    HttpRequest.newBuilder(URI.create("http://localhost:" + server.getAddress().getPort() + "/metrics")).build(),
+                    HttpResponse.BodyHandlers.ofString());
+
+            //then
+            assertEquals(200, response.statusCode());
+            assertTrue(response.body().contains("test_names_flow_duration_seconds_bucket"));
+        } finally {
+            server.stop(0);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.learnreactiveprogramming.util;
+
+import com.learnreactiveprogramming.exception.LappedException;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ReplayRingTest {
+
+    @Test
+    void asFlux_lateSubscriberGetsTheLastEvents() {
+        //given
+        var ring = new ReplayRing<Integer>(4);
+        IntStream.rangeClosed(1, 10).forEach(ring::emitNext);
+
+        //when
+        var flux = ring.asFlux();
+
+        //then
+        StepVerifier.create(flux)
+                .expectNext(7, 8, 9, 10)
+                .then(() -> ring.emitNext(11))
+                .expectNext(11)
+                .then(ring::emitComplete)
+                .verifyComplete();
+    }
+
+    @Test
+    void asFlux_lappedSubscriberFails() {
+        //given
+        var ring = new ReplayRing<Integer>(4);
+        ring.emitNext(1);
+
+        //when
+        var flux = ring.asFlux();
+
+        //then
+        StepVerifier.create(flux, 1)
+                .expectNext(1)
+                .then(() -> IntStream.rangeClosed(2, 10).forEach(ring::emitNext))
+                .thenRequest(1)
+                .expectErrorMatches(ex -> ex instanceof LappedException && ((LappedException) ex).getMissed() == 5)
+                .verify();
+    }
+
+    @Test
+    void asFlux_lappedSubscriberIsNotifiedAndCarriesOn() {
+        //given
+        var ring = new ReplayRing<Integer>(4);
+        var missed = new AtomicLong();
+        ring.emitNext(1);
+
+        //when
+        var flux = ring.asFlux(missed::addAndGet);
+
+        //then
+        StepVerifier.create(flux, 1)
+                .expectNext(1)
+                .then(() -> IntStream.rangeClosed(2, 10).forEach(ring::emitNext))
+                .thenRequest(Long.MAX_VALUE)
+                .expectNext(7, 8, 9, 10)
+                .then(ring::emitComplete)
+                .verifyComplete();
+        assertEquals(5, missed.get());
+    }
+
+    @Test
+    void emitNext_concurrentProducers() {
+        //given
+        var ring = new ReplayRing<Integer>(1 << 16);
+        var producers = 4;
+        var perProducer = 10_000;
+        var received = new HashSet<Integer>();
+
+        //when
+        var subscriber = ring.asFlux()
+                .doOnNext(received::add)
+                .take(producers * perProducer)
+                .then();
+        var production = Flux.range(0, producers)
+                .parallel()
+                .runOn(Schedulers.parallel())
+                .doOnNext(producer -> IntStream.range(0, perProducer)
+                        .forEach(i -> ring.emitNext(producer * perProducer + i)))
+                .then();
+
+        //then
+        StepVerifier.create(subscriber.and(production))
+                .expectComplete()
+                .verify(Duration.ofSeconds(10));
+        assertEquals(producers * perProducer, received.size());
+    }
+
+    @Test
+    void constructor_capacityPowerOfTwo() {
+        assertThrows(IllegalArgumentException.class, () -> new ReplayRing<Integer>(10));
+    }
+}
@@ -0,0 +1,104 @@
+package com.learnreactiveprogramming.util;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RetryPolicyTest {
+
+    RetryPolicy.Settings settings = RetryPolicy.Settings.builder()
+            .maxRetries(3)
+            .minBackoff(Duration.ofMillis(1))
+            .maxBackoff(Duration.ofMillis(10))
+            .build();
+
+    @Test
+    void retry_succeeds() {
+        //given
+        var policy = new RetryPolicy(settings, RetryBudget.unlimited());
+        var calls = new AtomicInteger();
+        var flux = Flux.defer(() -> calls.incrementAndGet() < 3
+                ? Flux.<String>error(new IllegalStateException("Review Service is down"))
+                : Flux.just("Batman Begins"));
+
+        //when
+        var retried = flux.transform(policy::retry);
+
+        //then
+        StepVerifier.create(retried)
+                .expectNext("Batman Begins")
+                .verifyComplete();
+        assertEquals(new RetryPolicy.Metrics(2, 0, 1), policy.metrics());
+    }
+
+    @Test
+    void retry_exhausted_propagatesFailure() {
+        //given
+        var policy = new RetryPolicy(settings, RetryBudget.unlimited());
+        var calls = new AtomicInteger();
+        var mono = Mono.defer(() -> {
+            calls.incrementAndGet();
+            return Mono.error(new IllegalStateException("Review Service is down"));
+        });
+
+        //when
+        var retried = mono.retryWhen(policy);
+
+        //then
+        StepVerifier.create(retried)
+                .expectErrorMessage("Review Service is down")
+                .verify();
+        assertEquals(4, calls.get());
+    }
+
+    @Test
+    void retry_budgetExhausted_failsFast() {
+        //given
+        var policy = new RetryPolicy(settings, new RetryBudget(2, 0));
+        var calls = new AtomicInteger();
+        var mono = Mono.defer(() -> {
+            calls.incrementAndGet();
+            return Mono.error(new IllegalStateException("Review Service is down"));
+        });
+
+        //when
+        StepVerifier.create(mono.retryWhen(policy))
+                .expectErrorMessage("Review Service is down")
+                .verify();
+        StepVerifier.create(mono.retryWhen(policy))
+                .expectErrorMessage("Review Service is down")
+                .verify();
+
+        //then
+        // 2 retries for the first subscriber, none for the second one
+        assertEquals(4, calls.get());
+        assertEquals(new RetryPolicy.Metrics(2, 2, 0), policy.metrics());
+    }
+
+    @Test
+    void retry_cancelledAfterRetry_isNotASuccess() {
+        //given
+        var policy = new RetryPolicy(settings, RetryBudget.unlimited());
+        var calls = new AtomicInteger();
+        var flux = Flux.defer(() -> calls.incrementAndGet() < 2
+                ? Flux.<String>error(new IllegalStateException("Review Service is down"))
+                : Flux.<String>never());
+
+        //when
+        var retried = flux.transform(policy::retry);
+
+        //then
+        StepVerifier.create(retried)
+                .expectSubscription()
+                .expectNoEvent(Duration.ofMillis(100))
+                .thenCancel()
+                .verify();
+        assertEquals(new RetryPolicy.Metrics(1, 0, 0), policy.metrics());
+    }
+}
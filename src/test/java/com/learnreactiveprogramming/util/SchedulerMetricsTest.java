@@ -0,0 +1,180 @@
+package com.learnreactiveprogramming.util;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static com.learnreactiveprogramming.util.CommonUtil.delay;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SchedulerMetricsTest {
+
+    @AfterEach
+    void tearDown() {
+        SchedulerMetrics.uninstall();
+    }
+
+    @Test
+    void newParallel_reportsActiveQueuedAndTimings() {
+        //given
+        var registry = new SimpleMeterRegistry();
+        var metrics = SchedulerMetrics.install(registry);
+        var scheduler = Schedulers.newParallel("parallel-scheduler", 2);
+
+        try {
+            //when
+            // 6 tasks of 300 ms on 2 workers : 2 running, 4 waiting
+            var done = Flux.range(0, 6)
+                    .flatMap(i -> Mono.fromRunnable(() -> delay(300)).subscribeOn(scheduler))
+                    .then()
+                    .toFuture();
+            delay(100);
+            var saturated = saturation(metrics.snapshot(), "parallel-scheduler");
+            done.join();
+
+            //then
+            assertEquals(2, saturated.getActive());
+            assertEquals(4, saturated.getQueued());
+            var drained = saturation(metrics.snapshot(), "parallel-scheduler");
+            assertEquals(0, drained.getQueued());
+            assertEquals(6, drained.getTasks());
+            assertTrue(drained.getMaxWait().compareTo(Duration.ofMillis(500)) >= 0);
+            assertTrue(drained.getMaxExecution().compareTo(Duration.ofMillis(300)) >= 0);
+            assertEquals(6, registry.find("reactor.scheduler.execution").timer().count());
+            assertEquals(0, registry.find("reactor.scheduler.queued").gauge().value());
+        } finally {
+            scheduler.dispose();
+        }
+    }
+
+    @Test
+    void newBoundedElastic_reportsEachWorker() {
+        //given
+        var metrics = SchedulerMetrics.install(new SimpleMeterRegistry());
+        var scheduler = Schedulers.newBoundedElastic(3, 100, "elastic-test");
+
+        try {
+            //when
+            Flux.range(0, 6)
+                    .flatMap(i -> Mono.fromRunnable(() -> delay(100)).subscribeOn(scheduler))
+                    .blockLast();
+
+            //then
+            var saturation = saturation(metrics.snapshot(), "elastic-test");
+            assertEquals(6, saturation.getTasks());
+            assertTrue(saturation.getMeanWait().compareTo(Duration.ZERO) > 0);
+        } finally {
+            scheduler.dispose();
+        }
+    }
+
+    @Test
+    void decorate_prunesTerminatedExecutors() {
+        //given
+        var metrics = SchedulerMetrics.install(new SimpleMeterRegistry());
+
+        //when
+        // never read in between, only the decoration of the next executor can prune the previous ones
+        for (int i = 0; i < 5; i++) {
+            Schedulers.newSingle("single-test").disposeGracefully().block(Duration.ofSeconds(5));
+        }
+        var scheduler = Schedulers.newSingle("single-test");
+
+        try {
+            //then
+            var tracked = metrics.trackedExecutors().entrySet().stream()
+                    .filter(entry -> entry.getKey().contains("single-test"))
+                    .mapToInt(Map.Entry::getValue)
+                    .sum();
+            assertEquals(1, tracked);
+        } finally {
+            scheduler.dispose();
+        }
+    }
+
+    @Test
+    void uninstall_stopsDecoratingNewSchedulers() {
+        //given
+        var metrics = SchedulerMetrics.install(new SimpleMeterRegistry());
+        SchedulerMetrics.uninstall();
+        var scheduler = Schedulers.newParallel("not-instrumented", 1);
+
+        try {
+            //when
+            Mono.fromRunnable(() -> delay(10)).subscribeOn(scheduler).block();
+
+            //then
+            assertTrue(metrics.snapshot().isEmpty());
+        } finally {
+            scheduler.dispose();
+        }
+    }
+
+    @Test
+    void install_replacesTheMetersOfThePreviousInstallation() {
+        //given
+        var registry = new SimpleMeterRegistry();
+        SchedulerMetrics.install(registry);
+        var previous = Schedulers.newParallel("reinstalled", 2);
+        Mono.fromRunnable(() -> delay(10)).subscribeOn(previous).block();
+
+        //when
+        SchedulerMetrics.install(registry);
+        var scheduler = Schedulers.newParallel("reinstalled", 2);
+
+        try {
+            var done = Flux.range(0, 4)
+                    .flatMap(i -> Mono.fromRunnable(() -> delay(300)).subscribeOn(scheduler))
+                    .then()
+                    .toFuture();
+            delay(100);
+            var active = registry.find("reactor.scheduler.active").gauge().value();
+            done.join();
+
+            //then
+            assertEquals(2, active);
+            assertEquals(1, registry.find("reactor.scheduler.active").gauges().size());
+            assertEquals(4, registry.find("reactor.scheduler.execution").timer().count());
+        } finally {
+            previous.dispose();
+            scheduler.dispose();
+        }
+    }
+
+    @Test
+    void uninstall_removesTheMeters() {
+        //given
+        var registry = new SimpleMeterRegistry();
+        SchedulerMetrics.install(registry);
+        var scheduler = Schedulers.newParallel("removed", 1);
+
+        try {
+            Mono.fromRunnable(() -> delay(10)).subscribeOn(scheduler).block();
+
+            //when
+            SchedulerMetrics.uninstall();
+
+            //then
+            assertNull(registry.find("reactor.scheduler.active").gauge());
+            assertNull(registry.find("reactor.scheduler.execution").timer());
+        } finally {
+            scheduler.dispose();
+        }
+    }
+
+    private static SchedulerMetrics.Saturation saturation(Map<String, SchedulerMetrics.Saturation> snapshot, String name) {
+        return snapshot.entrySet().stream()
+                .filter(entry -> entry.getKey().contains(name))
+                .map(Map.Entry::getValue)
+                .findFirst()
+                .orElseThrow();
+    }
+}
@@ -0,0 +1,73 @@
+package com.learnreactiveprogramming.util;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SerializedSinkTest {
+
+    @Test
+    void emitNext_concurrentProducers() {
+        //given
+        var sink = new SerializedSink<Integer>(Sinks.many().multicast().onBackpressureBuffer());
+        var producers = 16;
+        var perProducer = 10_000;
+
+        //when
+        var received = sink.asFlux()
+                .take(producers * perProducer)
+                .count();
+        var production = Flux.range(0, producers)
+                .parallel(producers)
+                .runOn(Schedulers.parallel())
+                .doOnNext(producer -> IntStream.range(0, perProducer)
+                        .forEach(i -> sink.emitNext(producer * perProducer + i)))
+                .then();
+
+        //then
+        StepVerifier.create(received.zipWith(production.thenReturn(true), (count, done) -> count))
+                .expectNext((long) producers * perProducer)
+                .expectComplete()
+                .verify(Duration.ofSeconds(10));
+        assertEquals(0, sink.getDropped());
+        assertEquals(producers * perProducer, sink.getEmitted());
+    }
+
+    @Test
+    void emitNext_noSubscriberIsDropped() {
+        //given
+        var sink = new SerializedSink<Integer>(Sinks.many().multicast().directBestEffort());
+
+        //when
+        sink.emitNext(1);
+        sink.emitNext(2);
+
+        //then
+        assertEquals(2, sink.getDropped());
+        assertEquals(0, sink.getEmitted());
+    }
+
+    @Test
+    void emitComplete() {
+        //given
+        var sink = new SerializedSink<Integer>(Sinks.many().replay().all());
+
+        //when
+        sink.emitNext(1);
+        sink.emitComplete();
+        sink.emitNext(2);
+
+        //then
+        StepVerifier.create(sink.asFlux())
+                .expectNext(1)
+                .verifyComplete();
+        assertEquals(1, sink.getDropped());
+    }
+}
@@ -0,0 +1,84 @@
+package com.learnreactiveprogramming.util;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SignalTracingTest {
+
+    @Test
+    void disabled_returnsSource() {
+        //given
+        var flux = Flux.range(1, 3);
+
+        //when
+        var traced = SignalTracing.disabled().traceFlux(flux);
+
+        //then
+        assertSame(flux, traced);
+    }
+
+    @Test
+    void sampled_passesSignalsThrough() {
+        //given
+        var tracing = SignalTracing.sampled("test.sampled", 2, Duration.ofMillis(10));
+
+        //when
+        var flux = Flux.range(1, 5)
+                .delayElements(Duration.ofMillis(20))
+                .transform(tracing::traceFlux);
+
+        //then
+        StepVerifier.create(flux)
+                .expectNext(1, 2, 3, 4, 5)
+                .verifyComplete();
+
+        StepVerifier.create(Mono.error(new RuntimeException("boom")).transform(tracing::traceMono))
+                .expectErrorMessage("boom")
+                .verify();
+        assertEquals(1, tracing.getErrors());
+    }
+
+    @Test
+    void sampled_logsOneOnNextInSampleRate() {
+        //given
+        var tracing = SignalTracing.sampled("test.sampled", 10, Duration.ofHours(1));
+
+        //when
+        var flux = Flux.range(1, 100)
+                .transform(tracing::traceFlux);
+
+        //then
+        StepVerifier.create(flux)
+                .expectNextCount(100)
+                .verifyComplete();
+        assertEquals(10, tracing.getSampled());
+        assertEquals(0, tracing.getSlow());
+    }
+
+    @Test
+    void sampled_alwaysLogsSlowSignals() {
+        //given
+        var tracing = SignalTracing.sampled("test.slow", 1000, Duration.ofMillis(10));
+
+        //when
+        var flux = Flux.range(1, 3)
+                .delayElements(Duration.ofMillis(30))
+                .transform(tracing::traceFlux);
+
+        //then
+        StepVerifier.create(flux)
+                .expectNext(1, 2, 3)
+                .verifyComplete();
+        assertTrue(tracing.getSlow() >= 3);
+        assertEquals(0, tracing.getSampled());
+        assertEquals(0, tracing.getErrors());
+    }
+}
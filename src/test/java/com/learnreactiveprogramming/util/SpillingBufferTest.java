@@ -0,0 +1,139 @@
+package com.learnreactiveprogramming.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SpillingBufferTest {
+
+    private static final SpillingBuffer.Codec<Long> LONG_CODEC = SpillingBuffer.Codec.of(
+            value -> ByteBuffer.allocate(Long.BYTES).putLong(value).array(),
+            bytes -> ByteBuffer.wrap(bytes).getLong());
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void apply_spillsAndReplaysInOrder() throws IOException {
+        //given
+        var count = 10_000_000L;
+        var maxInMemory = 1024;
+        var buffer = new SpillingBuffer<>(maxInMemory, 8 * 1024 * 1024, directory, LONG_CODEC);
+        var expected = new AtomicLong();
+
+        //when
+        // the whole burst is pushed before the subscriber asks for anything
+        var flux = Flux.range(0, (int) count)
+                .map(Integer::longValue)
+                .transform(buffer::apply);
+
+        //then
+        StepVerifier.create(flux, 0)
+                .then(() -> assertEquals(count - maxInMemory, buffer.getSpilledElements()))
+                .thenRequest(10)
+                .expectNext(0L, 1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L)
+                .then(() -> expected.set(10))
+                .thenRequest(Long.MAX_VALUE)
+                .thenConsumeWhile(value -> value == expected.getAndIncrement())
+                .expectComplete()
+                .verify(Duration.ofMinutes(2));
+
+        assertEquals(count, expected.get());
+        assertEquals(0, buffer.getOpenSegments());
+        try (var files = Files.list(directory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void apply_cancelDeletesSegments() throws IOException {
+        //given
+        var buffer = new SpillingBuffer<>(16, 1024, directory, LONG_CODEC);
+
+        //when
+        var flux = Flux.range(0, 10_000)
+                .map(Integer::longValue)
+                .transform(buffer::apply);
+
+        //then
+        StepVerifier.create(flux, 0)
+                .then(() -> assertEquals(10_000 - 16, buffer.getSpilledElements()))
+                .thenRequest(20)
+                .expectNextCount(20)
+                .thenCancel()
+                .verify();
+
+        assertEquals(0, buffer.getOpenSegments());
+        try (var files = Files.list(directory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void apply_dropsElementsAfterCancel() throws IOException {
+        //given
+        var buffer = new SpillingBuffer<>(2, 1024, directory, LONG_CODEC);
+        var source = new AtomicReference<Subscriber<? super Long>>();
+        // ignores the cancel and keeps emitting
+        Publisher<Long> publisher = subscriber -> {
+            source.set(subscriber);
+            subscriber.onSubscribe(new Subscription() {
+                @Override
+                public void request(long n) {
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+        };
+
+        //when
+        var subscription = Flux.from(publisher)
+                .transform(buffer::apply)
+                .subscribe();
+        subscription.dispose();
+        for (long i = 0; i < 10; i++) {
+            source.get().onNext(i);
+        }
+
+        //then
+        assertEquals(0, buffer.getSpilledElements());
+        assertEquals(0, buffer.getOpenSegments());
+        try (var files = Files.list(directory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void apply_errorAfterBufferedElements() {
+        //given
+        var buffer = new SpillingBuffer<>(2, 1024, directory, LONG_CODEC);
+
+        //when
+        var flux = Flux.just(1L, 2L, 3L, 4L)
+                .concatWith(Flux.error(new IllegalStateException("boom")))
+                .transform(buffer::apply);
+
+        //then
+        StepVerifier.create(flux)
+                .expectNext(1L, 2L, 3L, 4L)
+                .expectError(IllegalStateException.class)
+                .verify();
+        assertEquals(0, buffer.getOpenSegments());
+    }
+}
@@ -0,0 +1,126 @@
+package com.learnreactiveprogramming.util;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StageLatencyRecorderTest {
+
+    private static final int ITERATIONS = 200_000;
+    private static final int ROUNDS = 5;
+    // coarse guard against a regression such as a lock or a map lookup per subscription, several times what the
+    // recorder costs : the precise numbers come from StageLatencyRecorderBenchmark
+    private static final long MAX_OVERHEAD_NANOS_PER_OP = 2_000;
+
+    @Test
+    void snapshot() {
+        //given
+        var recorder = new StageLatencyRecorder(Duration.ofSeconds(10));
+
+        //when
+        for (int i = 0; i < 10; i++) {
+            StepVerifier.create(recorder.mono("movie.movieInfo", Mono.just(i).delayElement(Duration.ofMillis(50))))
+                    .expectNextCount(1)
+                    .verifyComplete();
+        }
+        StepVerifier.create(recorder.flux("movie.reviews", Flux.range(0, 3).delayElements(Duration.ofMillis(20))))
+                .expectNextCount(3)
+                .verifyComplete();
+
+        //then
+        var snapshot = recorder.snapshot();
+        var movieInfo = snapshot.get("movie.movieInfo");
+        assertEquals(10, movieInfo.getCount());
+        assertTrue(movieInfo.getP50().compareTo(Duration.ofMillis(50)) >= 0);
+        assertTrue(movieInfo.getP999().compareTo(movieInfo.getP50()) >= 0);
+        var reviews = snapshot.get("movie.reviews");
+        assertEquals(1, reviews.getCount());
+        assertTrue(reviews.getMax().compareTo(Duration.ofMillis(60)) >= 0);
+        assertTrue(recorder.dump().contains("movie.reviews"));
+    }
+
+    @Test
+    void mono_recordsErrorsOnce() {
+        //given
+        var recorder = new StageLatencyRecorder(Duration.ofSeconds(1));
+
+        //when
+        var mono = recorder.mono("stage", Mono.<Integer>error(new IllegalStateException("boom")));
+
+        //then
+        StepVerifier.create(mono)
+                .expectError(IllegalStateException.class)
+                .verify();
+        assertEquals(1, recorder.snapshot().get("stage").getCount());
+    }
+
+    @Test
+    void disabled_returnsTheSource() {
+        //given
+        var source = Mono.just(1);
+
+        //when
+        var mono = StageLatencyRecorder.disabled().mono("stage", source);
+
+        //then
+        assertSame(source, mono);
+        assertTrue(StageLatencyRecorder.disabled().snapshot().isEmpty());
+    }
+
+    @Test
+    void flux_countsCancellationsApart() {
+        //given
+        var recorder = new StageLatencyRecorder(Duration.ofSeconds(1));
+
+        //when
+        var flux = recorder.flux("stage", Flux.interval(Duration.ofMillis(10)))
+                .take(3);
+
+        //then
+        StepVerifier.create(flux)
+                .expectNextCount(3)
+                .verifyComplete();
+        var latency = recorder.snapshot().get("stage");
+        assertEquals(0, latency.getCount());
+        assertEquals(1, latency.getCancelled());
+    }
+
+    @Test
+    void overhead_staysUnderTarget() {
+        //given
+        var recorder = new StageLatencyRecorder(Duration.ofSeconds(1));
+        var source = Mono.just(1);
+        var timed = recorder.mono("stage", source);
+        // warm up both paths before measuring
+        run(source);
+        run(timed);
+
+        //when
+        // best of several rounds, a GC pause or a busy machine only inflates some of them
+        var overhead = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            var baseline = run(source);
+            var instrumented = run(timed);
+            overhead = Math.min(overhead, (instrumented - baseline) / ITERATIONS);
+        }
+
+        //then
+        assertTrue(overhead < MAX_OVERHEAD_NANOS_PER_OP, "overhead of " + overhead + " ns/op");
+        assertEquals((ROUNDS + 1L) * ITERATIONS, recorder.snapshot().get("stage").getCount());
+    }
+
+    private static long run(Mono<Integer> mono) {
+        var start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            mono.subscribe();
+        }
+        return System.nanoTime() - start;
+    }
+}
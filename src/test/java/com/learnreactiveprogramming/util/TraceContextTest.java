@@ -0,0 +1,126 @@
+package com.learnreactiveprogramming.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TraceContextTest {
+
+    @AfterEach
+    void tearDown() {
+        TraceContext.removeSchedulerHook();
+    }
+
+    @Test
+    void flux_restoresTraceIdAfterEachHop() {
+        //given
+        List<SchedulerSpans.Span> spans = new CopyOnWriteArrayList<>();
+        var schedulerSpans = TraceContext.installSchedulerHook(spans::add);
+
+        //when
+        var flux = Flux.just("alex", "ben", "chloe")
+                .subscribeOn(Schedulers.boundedElastic())
+                .map(name -> name + "@" + TraceContext.currentTraceId())
+                .publishOn(Schedulers.parallel())
+                .map(name -> name + "@" + TraceContext.currentTraceId())
+                .transform(TraceContext::flux)
+                .contextWrite(TraceContext.withTraceId("trace-1"));
+
+        //then
+        StepVerifier.create(flux)
+                .expectNext("alex@trace-1@trace-1", "ben@trace-1@trace-1", "chloe@trace-1@trace-1")
+                .verifyComplete();
+        assertNull(TraceContext.currentTraceId());
+        assertTrue(spans.stream().allMatch(span -> span.getTraceId().equals("trace-1")));
+        assertTrue(spans.stream().anyMatch(span -> span.getScheduler().equals("boundedElastic")));
+        assertTrue(spans.stream().anyMatch(span -> span.getScheduler().equals("parallel")));
+        assertTrue(schedulerSpans.snapshot().get("parallel").getTasks() > 0);
+    }
+
+    @Test
+    void installSchedulerHook_queuedTimeExcludesDelayAndPeriod() {
+        //given
+        var schedulerSpans = TraceContext.installSchedulerHook();
+        var scheduler = Schedulers.newSingle("ticker");
+
+        try {
+            //when
+            var flux = Flux.interval(Duration.ofMillis(50), Duration.ofMillis(50), scheduler)
+                    .take(5);
+
+            //then
+            StepVerifier.create(flux)
+                    .expectNextCount(5)
+                    .verifyComplete();
+            var stats = schedulerSpans.snapshot().get("ticker");
+            assertTrue(stats.getTasks() >= 5);
+            // measured from the scheduling call, the fifth run would have been queued for 250 ms
+            assertTrue(stats.getMaxQueued().toMillis() < 50);
+        } finally {
+            scheduler.dispose();
+        }
+    }
+
+    @Test
+    void flux_withoutHook_losesTraceIdOnHop() {
+        //given
+
+        //when
+        var flux = Flux.just("alex")
+                .publishOn(Schedulers.parallel())
+                .map(name -> String.valueOf(TraceContext.currentTraceId()))
+                .transform(TraceContext::flux)
+                .contextWrite(TraceContext.withTraceId("trace-1"));
+
+        //then
+        StepVerifier.create(flux)
+                .expectNext("null")
+                .verifyComplete();
+    }
+
+    @Test
+    void mono_exposesTraceIdToDownstream() {
+        //given
+        TraceContext.installSchedulerHook();
+        var traceId = TraceContext.newTraceId();
+
+        //when
+        var mono = Mono.just("alex")
+                .publishOn(Schedulers.boundedElastic())
+                .transform(TraceContext::mono)
+                .map(name -> TraceContext.currentTraceId())
+                .contextWrite(TraceContext.withTraceId(traceId));
+
+        //then
+        StepVerifier.create(mono)
+                .expectNext(traceId)
+                .verifyComplete();
+    }
+
+    @Test
+    void flux_withoutTraceId() {
+        //given
+        var flux = Flux.just("alex");
+
+        //when
+        var traced = flux.transform(TraceContext::flux)
+                .map(name -> String.valueOf(TraceContext.currentTraceId()));
+
+        //then
+        StepVerifier.create(traced)
+                .expectNext("null")
+                .verifyComplete();
+        assertEquals(16, TraceContext.newTraceId().length());
+    }
+}
@@ -0,0 +1,181 @@
+package com.learnreactiveprogramming.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.learnreactiveprogramming.util.CommonUtil.delay;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WorkStealingParallelTest {
+
+    private final Scheduler scheduler = Schedulers.newParallel("work-stealing-test", 4);
+
+    @AfterEach
+    void tearDown() {
+        scheduler.dispose();
+    }
+
+    @Test
+    void subscribe_deliversEveryElementOnce() {
+        //given
+        var parallel = new WorkStealingParallel<>(Flux.range(0, 10_000), scheduler,
+                WorkStealingParallel.Settings.builder().maxRails(4).prefetch(32).build());
+
+        //when
+        var flux = parallel.map(i -> i * 2)
+                .sequential()
+                .collectList();
+
+        //then
+        StepVerifier.create(flux)
+                .assertNext(values -> {
+                    assertEquals(10_000, values.size());
+                    assertEquals(10_000, new HashSet<>(values).size());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void subscribe_idleRailsStealFromTheBusyOne() {
+        //given
+        // round-robin deals every expensive element to the first rail
+        var settings = WorkStealingParallel.Settings.builder().maxRails(4).minRails(4).build();
+        var parallel = new WorkStealingParallel<>(Flux.range(0, 16), scheduler, settings);
+
+        //when
+        var flux = parallel.map(i -> {
+            delay(i % 4 == 0 ? 200 : 10);
+            return i;
+        });
+
+        //then
+        // stock rails would take 4 * 200 ms on the first rail
+        StepVerifier.create(flux)
+                .expectNextCount(16)
+                .expectComplete()
+                .verify(Duration.ofMillis(600));
+        assertTrue(parallel.getSteals() > 0);
+    }
+
+    @Test
+    void subscribe_adaptsTheActiveRails() {
+        //given
+        var settings = WorkStealingParallel.Settings.builder()
+                .maxRails(4)
+                .minRails(2)
+                .adaptInterval(Duration.ofMillis(10))
+                .build();
+        var parallel = new WorkStealingParallel<>(Flux.range(0, 200), scheduler, settings);
+
+        //when
+        var flux = parallel.map(i -> {
+            delay(2);
+            return i;
+        });
+
+        //then
+        StepVerifier.create(flux)
+                .expectNextCount(200)
+                .verifyComplete();
+        assertTrue(parallel.getAdjustments() > 0);
+        assertTrue(parallel.getActiveRails() >= 2 && parallel.getActiveRails() <= 4);
+    }
+
+    @Test
+    void adapt_shrinkLeavesNoElementBehind() {
+        //given
+        // adapts on every element, the source never completes so nothing but the shrink wakes the active rails
+        var settings = WorkStealingParallel.Settings.builder()
+                .maxRails(4)
+                .minRails(1)
+                .prefetch(256)
+                .adaptInterval(Duration.ZERO)
+                .build();
+        var parallel = new WorkStealingParallel<>(Flux.range(0, 200).concatWith(Flux.never()), scheduler, settings);
+
+        //when
+        var flux = parallel.map(i -> {
+            delay(i % 4 == 3 ? 5 : 0);
+            return i;
+        })
+                .sequential();
+
+        //then
+        StepVerifier.create(flux)
+                .expectNextCount(200)
+                .thenCancel()
+                .verify(Duration.ofSeconds(10));
+        assertTrue(parallel.getAdjustments() > 0);
+    }
+
+    @Test
+    void subscribe_requestsTheSourceSerially() {
+        //given
+        var requesting = new AtomicInteger();
+        var overlapped = new AtomicBoolean();
+        var source = Flux.range(0, 5_000)
+                .doOnRequest(n -> {
+                    if (requesting.getAndIncrement() != 0) {
+                        overlapped.set(true);
+                    }
+                    delay(1);
+                    requesting.decrementAndGet();
+                });
+        var parallel = new WorkStealingParallel<>(source, scheduler,
+                WorkStealingParallel.Settings.builder().maxRails(4).prefetch(8).build());
+
+        //when
+        var flux = parallel.sequential();
+
+        //then
+        StepVerifier.create(flux)
+                .expectNextCount(5_000)
+                .verifyComplete();
+        assertFalse(overlapped.get());
+    }
+
+    @Test
+    void subscribe_error() {
+        //given
+        var parallel = new WorkStealingParallel<>(Flux.range(0, 3)
+                .concatWith(Flux.error(new IllegalStateException("boom"))), scheduler);
+
+        //when
+        var flux = parallel.sequential();
+
+        //then
+        StepVerifier.create(flux)
+                .thenConsumeWhile(i -> true)
+                .expectError(IllegalStateException.class)
+                .verify();
+    }
+
+    @Test
+    void cancel_cancelsTheSource() {
+        //given
+        var cancelled = new AtomicBoolean();
+        var parallel = new WorkStealingParallel<>(Flux.range(0, 1_000_000)
+                .doOnCancel(() -> cancelled.set(true)), scheduler);
+
+        //when
+        var flux = parallel.sequential()
+                .take(10);
+
+        //then
+        StepVerifier.create(flux)
+                .expectNextCount(10)
+                .verifyComplete();
+        assertTrue(cancelled.get());
+    }
+}